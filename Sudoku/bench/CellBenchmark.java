@@ -0,0 +1,80 @@
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks for Cell value and pencil mark operations, run against each puzzle of the Corpus.
+ * See PuzzleBenchmark for how to run them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellBenchmark {
+
+	@Param({"easy", "hard", "pathological"})
+	public String puzzle;
+
+	private Puzzle p;
+
+	/**
+	 * The empty Cell closest after the centre that setValue changes, since givens cannot be changed
+	 */
+	private Cell empty;
+
+	@Setup
+	public void setUp(){
+		p = new Puzzle(Corpus.values(puzzle));
+		for(int k = 0; k < 81 && empty == null; k++){
+			int i = (40 + k) % 81;
+			if(!p.isGiven(i/9, i%9)){
+				empty = p.getCell(i/9, i%9);
+			}
+		}
+	}
+
+	/**
+	 * Fills the pencil marks of every empty Cell one at a time
+	 */
+	@Benchmark
+	public void fillPencilMarksPerCell(){
+		for(int r = 0; r < 9; r++){
+			for(int c = 0; c < 9; c++){
+				Cell cel = p.getCell(r, c);
+				if(cel.getValue() == 0){
+					Cell.fillPencilMarks(cel, p.getBlock((r/3)*3 + c/3), p.getColumn(c), p.getRow(r));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fills the pencil marks of every empty Cell in one pass
+	 */
+	@Benchmark
+	public void fillPencilMarks(){
+		p.fillPencilMarks();
+	}
+
+	@Benchmark
+	public void readPencilMarks(Blackhole bh){
+		for(int r = 0; r < 9; r++){
+			for(int c = 0; c < 9; c++){
+				bh.consume(p.getCell(r, c).getPencilMask());
+			}
+		}
+	}
+
+	/**
+	 * Sets and clears the value of an empty Cell, which updates the win counters
+	 */
+	@Benchmark
+	public boolean setValue(){
+		empty.setValue(9);
+		empty.setValue(0);
+		return p.checkWin();
+	}
+}
@@ -0,0 +1,72 @@
+import java.io.*;
+
+/**
+ * The fixed set of puzzles every benchmark runs against, selected by name through a JMH @Param.
+ * <ul>
+ * <li>easy - the puzzle from puzzle_bank.txt, solved by singles alone</li>
+ * <li>hard - a puzzle that needs a lot of guessing</li>
+ * <li>pathological - a puzzle built to defeat backtracking that tries cells and digits in order</li>
+ * </ul>
+ */
+public final class Corpus {
+
+	public static final String EASY =
+			"000084601008000000010309047300100504009000000500600102030901086004000000000043709";
+
+	public static final String HARD =
+			"800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+
+	public static final String PATHOLOGICAL =
+			"000000000000003085001020000000507000004000100090000000500000073002010000000040009";
+
+	private Corpus(){
+	}
+
+	/**
+	 * @param name - one of "easy", "hard" or "pathological"
+	 * @return the values of the named puzzle in row-major order
+	 * @throws IllegalArgumentException if name is not one of the above
+	 */
+	public static int[] values(String name){
+		String s;
+		if("easy".equals(name)){
+			s = EASY;
+		}else if("hard".equals(name)){
+			s = HARD;
+		}else if("pathological".equals(name)){
+			s = PATHOLOGICAL;
+		}else{
+			throw new IllegalArgumentException("Unknown puzzle " + name);
+		}
+		int[] v = new int[81];
+		for(int i = 0; i < 81; i++){
+			v[i] = s.charAt(i) - '0';
+		}
+		return v;
+	}
+
+	/**
+	 * Writes the named puzzle to a temporary file in the nine line format of puzzle_bank.txt
+	 * @param name - one of "easy", "hard" or "pathological"
+	 * @return the file, which is deleted when the JVM exits
+	 * @throws IOException if the file cannot be written
+	 */
+	public static File file(String name) throws IOException{
+		int[] v = values(name);
+		File f = File.createTempFile(name, ".txt");
+		f.deleteOnExit();
+		Writer w = new FileWriter(f);
+		try{
+			for(int r = 0; r < 9; r++){
+				for(int c = 0; c < 9; c++){
+					w.write(c == 0 ? "" : " ");
+					w.write('0' + v[r*9+c]);
+				}
+				w.write('\n');
+			}
+		}finally{
+			w.close();
+		}
+		return f;
+	}
+}
@@ -0,0 +1,77 @@
+import java.io.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * <p>
+ * JMH benchmarks for the Puzzle and Group hot paths. Every benchmark runs once for each puzzle of the Corpus.
+ * </p>
+ * <p>
+ * The benchmarks in this folder need src on the classpath along with jmh-core and the jmh-generator-annprocess
+ * annotation processor. With both jars in lib, for example:
+ * <pre>
+ * javac -cp lib/* -d bench-bin src/*.java bench/*.java
+ * java -cp bench-bin:lib/* org.openjdk.jmh.Main
+ * </pre>
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PuzzleBenchmark {
+
+	@Param({"easy", "hard", "pathological"})
+	public String puzzle;
+
+	private File file;
+	private Puzzle p;
+
+	@Setup
+	public void setUp() throws IOException{
+		file = Corpus.file(puzzle);
+		p = new Puzzle(Corpus.values(puzzle));
+	}
+
+	@Benchmark
+	public Puzzle fromFile(){
+		return new Puzzle(file);
+	}
+
+	@Benchmark
+	public Puzzle fromValues(){
+		return new Puzzle(Corpus.values(puzzle));
+	}
+
+	@Benchmark
+	public void getGroups(Blackhole bh){
+		for(int i = 0; i < 9; i++){
+			bh.consume(p.getRow(i));
+			bh.consume(p.getColumn(i));
+			bh.consume(p.getBlock(i));
+		}
+	}
+
+	@Benchmark
+	public void checkGroups(Blackhole bh){
+		for(int i = 0; i < 9; i++){
+			bh.consume(p.getRow(i).isCorrect());
+			bh.consume(p.getColumn(i).isCorrect());
+			bh.consume(p.getBlock(i).isCorrect());
+		}
+	}
+
+	@Benchmark
+	public boolean checkWin(){
+		return p.checkWin();
+	}
+
+	@Benchmark
+	public String render(){
+		return p.toString();
+	}
+}
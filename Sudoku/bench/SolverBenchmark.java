@@ -0,0 +1,44 @@
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH benchmarks for solving each puzzle of the Corpus. See PuzzleBenchmark for how to run them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+	@Param({"easy", "hard", "pathological"})
+	public String puzzle;
+
+	private int[] values;
+	private Puzzle p;
+	private final BitmaskSolver bitmask = new BitmaskSolver();
+	private final DancingLinksSolver dlx = new DancingLinksSolver();
+
+	@Setup
+	public void setUp(){
+		values = Corpus.values(puzzle);
+		p = new Puzzle(values);
+	}
+
+	@Benchmark
+	public Solution bitmask(){
+		return bitmask.solve(values);
+	}
+
+	@Benchmark
+	public Solution bitmaskFromPuzzle(){
+		return bitmask.solve(p);
+	}
+
+	@Benchmark
+	public Solution dancingLinks(){
+		return dlx.solve(values);
+	}
+}
@@ -0,0 +1,239 @@
+import java.util.*;
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * <p>
+ * Batch processes many puzzles at once across all cores of the machine using a ForkJoinPool. Subclasses say
+ * what to do with one puzzle, see BatchSolver and BatchGrader.
+ * </p>
+ * <p>
+ * Puzzles are read from their source in chunks. Each chunk is split recursively between the worker threads of
+ * the pool, and once the whole chunk is done its results are handed to a Handler in input order. Only one
+ * chunk is held in memory at a time, so a file of any size can be streamed through.
+ * </p>
+ * @param <R> the type of the result of one puzzle
+ */
+public abstract class Batch<R> {
+
+	/**
+	 * Receives the result of each puzzle of a batch, always in the order the puzzles were read and always from
+	 * the thread that called run
+	 * @param <R> the type of the result of one puzzle
+	 */
+	public interface Handler<R> {
+
+		/**
+		 * Called once for each puzzle of a batch
+		 * @param index - the position of the puzzle in the input, starting at 0
+		 * @param values - the puzzle's values in row-major order, only valid during this call
+		 * @param result - the result for the puzzle
+		 * @param nanos - the time spent on the puzzle in nanoseconds
+		 */
+		void done(long index, int[] values, R result, long nanos);
+	}
+
+	/**
+	 * The default number of puzzles read and processed per chunk
+	 */
+	public static final int DEFAULT_CHUNK = 4096;
+
+	/**
+	 * Puzzles per task below which a chunk is no longer split
+	 */
+	private static final int THRESHOLD = 16;
+
+	/**
+	 * The pool the puzzles are processed in
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * true if pool was created by this and should be shut down with it
+	 */
+	private final boolean ownsPool;
+
+	/**
+	 * The number of puzzles read and processed per chunk
+	 */
+	private final int chunk;
+
+	/**
+	 * Creates a Batch that runs in a pool
+	 * @param pool - the pool to run in
+	 * @param chunk - the number of puzzles read and processed per chunk, must be positive
+	 * @param ownsPool - true if shutdown() should shut the pool down
+	 * @throws NullPointerException if pool is null
+	 * @throws IllegalArgumentException if chunk is not positive
+	 */
+	protected Batch(ForkJoinPool pool, int chunk, boolean ownsPool){
+		if(pool == null){throw new NullPointerException("pool cannot be null");}
+		if(chunk < 1){throw new IllegalArgumentException("chunk must be positive");}
+		this.pool = pool;
+		this.chunk = chunk;
+		this.ownsPool = ownsPool;
+	}
+
+	/**
+	 * Processes one puzzle. Called concurrently from the worker threads of the pool.
+	 * @param values - the puzzle's values in row-major order, which must not be modified
+	 * @return the result for the puzzle
+	 */
+	protected abstract R process(int[] values);
+
+	/**
+	 * Processes every puzzle from a PuzzleReader, handing the results to out in input order. The reader is not closed.
+	 * @param in - the source of puzzles
+	 * @param out - receives the result of each puzzle
+	 * @return the number of puzzles processed
+	 * @throws NullPointerException if in or out is null
+	 * @throws IllegalStateException if the input cannot be read or is improperly formatted
+	 */
+	public long run(PuzzleReader in, Handler<? super R> out){
+		if(in == null){throw new NullPointerException("in cannot be null");}
+		if(out == null){throw new NullPointerException("out cannot be null");}
+		Chunk<R> c = new Chunk<R>(this.chunk);
+		long index = 0;
+		while(true){
+			int n = 0;
+			int size;
+			while(n < this.chunk && (size = in.nextSize()) != 0){
+				// The arrays are only replaced when puzzles of another Layout come along
+				if(c.puzzles[n].length != size){
+					c.puzzles[n] = new int[size];
+				}
+				in.read(c.puzzles[n]);
+				n++;
+			}
+			if(n == 0){break;}
+			index = run(c, n, index, out);
+		}
+		return index;
+	}
+
+	/**
+	 * Processes every puzzle of a file in any format accepted by PuzzleReader
+	 * @param f - the file to read
+	 * @param out - receives the result of each puzzle
+	 * @return the number of puzzles processed
+	 * @throws NullPointerException if f or out is null
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalStateException if the file is improperly formatted
+	 */
+	public long run(File f, Handler<? super R> out) throws IOException{
+		PuzzleReader in = new PuzzleReader(f);
+		try{
+			return run(in, out);
+		}finally{
+			in.close();
+		}
+	}
+
+	/**
+	 * Processes an iterator of Puzzles, handing the results to out in input order
+	 * @param in - the source of puzzles
+	 * @param out - receives the result of each puzzle
+	 * @return the number of puzzles processed
+	 * @throws NullPointerException if in or out is null
+	 */
+	public long run(Iterator<Puzzle> in, Handler<? super R> out){
+		if(in == null){throw new NullPointerException("in cannot be null");}
+		if(out == null){throw new NullPointerException("out cannot be null");}
+		Chunk<R> c = new Chunk<R>(this.chunk);
+		long index = 0;
+		while(in.hasNext()){
+			int n = 0;
+			while(n < this.chunk && in.hasNext()){
+				// getValues() returns a new array, which also lets puzzles of any Layout through
+				c.puzzles[n] = in.next().getValues();
+				n++;
+			}
+			index = run(c, n, index, out);
+		}
+		return index;
+	}
+
+	/**
+	 * Processes an array of Puzzles
+	 * @param puzzles - the puzzles to process, none may be null
+	 * @return the result of each puzzle, in the same order
+	 * @throws NullPointerException if puzzles or any of its elements is null
+	 */
+	public List<R> run(Puzzle[] puzzles){
+		if(puzzles == null){throw new NullPointerException("puzzles cannot be null");}
+		final List<R> results = new ArrayList<R>(puzzles.length);
+		run(Arrays.asList(puzzles).iterator(), new Handler<R>(){
+			public void done(long index, int[] values, R result, long nanos){
+				results.add(result);
+			}
+		});
+		return results;
+	}
+
+	/**
+	 * Shuts down the pool if it was created by this Batch
+	 */
+	public void shutdown(){
+		if(this.ownsPool){
+			this.pool.shutdown();
+		}
+	}
+
+	/**
+	 * Processes the first n puzzles of c in the pool and reports them to out
+	 * @return the index of the next puzzle after this chunk
+	 */
+	private long run(Chunk<R> c, int n, long index, Handler<? super R> out){
+		this.pool.invoke(new Task(c, 0, n));
+		for(int k = 0; k < n; k++){
+			out.done(index++, c.puzzles[k], c.results.get(k), c.nanos[k]);
+			c.results.set(k, null);
+		}
+		return index;
+	}
+
+	/**
+	 * The puzzles and results of one chunk. The arrays are reused from chunk to chunk.
+	 */
+	private static final class Chunk<R> {
+		final int[][] puzzles;
+		final AtomicReferenceArray<R> results;
+		final long[] nanos;
+
+		Chunk(int size){
+			this.puzzles = new int[size][81];
+			this.results = new AtomicReferenceArray<R>(size);
+			this.nanos = new long[size];
+		}
+	}
+
+	/**
+	 * Processes the puzzles [lo,hi) of a chunk, splitting the range in half until it is small
+	 */
+	private final class Task extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Chunk<R> c;
+		private final int lo;
+		private final int hi;
+
+		Task(Chunk<R> c, int lo, int hi){
+			this.c = c;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected void compute(){
+			if(this.hi - this.lo <= THRESHOLD){
+				for(int k = this.lo; k < this.hi; k++){
+					long start = System.nanoTime();
+					this.c.results.lazySet(k, process(this.c.puzzles[k]));
+					this.c.nanos[k] = System.nanoTime() - start;
+				}
+			}else{
+				int mid = (this.lo + this.hi) >>> 1;
+				invokeAll(new Task(this.c, this.lo, mid), new Task(this.c, mid, this.hi));
+			}
+		}
+	}
+}
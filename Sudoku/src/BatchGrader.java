@@ -0,0 +1,65 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * BatchGrader grades many puzzles at once across all cores of the machine. See Batch for how puzzles are
+ * read, split between threads and reported in order.
+ */
+public class BatchGrader extends Batch<Grade> {
+
+	/**
+	 * The grader, shared by all workers
+	 */
+	private final Grader grader;
+
+	/**
+	 * Creates a BatchGrader using the standard techniques and its own pool with one thread per available processor
+	 */
+	public BatchGrader(){
+		this(new Grader(), new ForkJoinPool(), DEFAULT_CHUNK, true);
+	}
+
+	/**
+	 * Creates a BatchGrader using a given Grader and its own pool of a given size
+	 * @param grader - the grader used for every puzzle
+	 * @param threads - the number of worker threads, must be positive
+	 * @throws NullPointerException if grader is null
+	 * @throws IllegalArgumentException if threads is not positive
+	 */
+	public BatchGrader(Grader grader, int threads){
+		this(grader, new ForkJoinPool(threads), DEFAULT_CHUNK, true);
+	}
+
+	/**
+	 * Creates a BatchGrader that runs in an existing pool, which it will not shut down
+	 * @param grader - the grader used for every puzzle
+	 * @param pool - the pool to run in
+	 * @param chunk - the number of puzzles read and graded per chunk, must be positive
+	 * @throws NullPointerException if grader or pool is null
+	 * @throws IllegalArgumentException if chunk is not positive
+	 */
+	public BatchGrader(Grader grader, ForkJoinPool pool, int chunk){
+		this(grader, pool, chunk, false);
+	}
+
+	private BatchGrader(Grader grader, ForkJoinPool pool, int chunk, boolean ownsPool){
+		super(pool, chunk, ownsPool);
+		if(grader == null){throw new NullPointerException("grader cannot be null");}
+		this.grader = grader;
+	}
+
+	protected Grade process(int[] values){
+		return this.grader.grade(values);
+	}
+
+	/**
+	 * Grades an array of Puzzles
+	 * @param puzzles - the puzzles to grade, none may be null
+	 * @return the Grade of each puzzle, in the same order
+	 * @throws NullPointerException if puzzles or any of its elements is null
+	 */
+	public Grade[] grade(Puzzle[] puzzles){
+		List<Grade> results = run(puzzles);
+		return results.toArray(new Grade[results.size()]);
+	}
+}
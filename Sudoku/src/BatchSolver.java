@@ -0,0 +1,148 @@
+import java.util.*;
+import java.io.*;
+import java.util.concurrent.*;
+
+/**
+ * BatchSolver solves many puzzles at once across all cores of the machine. See Batch for how puzzles are
+ * read, split between threads and reported in order.
+ */
+public class BatchSolver extends Batch<Solution> {
+
+	/**
+	 * Receives the result of each puzzle of a batch, always in the order the puzzles were read and always from
+	 * the thread that called solve
+	 * @deprecated use Batch.Handler and the run methods, which also serve BatchGrader
+	 */
+	@Deprecated
+	public interface Handler {
+
+		/**
+		 * Called once for each puzzle of a batch
+		 * @param index - the position of the puzzle in the input, starting at 0
+		 * @param values - the puzzle's values in row-major order, only valid during this call
+		 * @param s - the result of solving the puzzle
+		 * @param nanos - the time spent solving the puzzle in nanoseconds
+		 */
+		void solved(long index, int[] values, Solution s, long nanos);
+	}
+
+	/**
+	 * The solver, shared by all workers
+	 */
+	private final Solver solver;
+
+	/**
+	 * Creates a BatchSolver using a BitmaskSolver and its own pool with one thread per available processor
+	 */
+	public BatchSolver(){
+		this(new BitmaskSolver(), new ForkJoinPool(), DEFAULT_CHUNK, true);
+	}
+
+	/**
+	 * Creates a BatchSolver using a BitmaskSolver and its own pool of a given size
+	 * @param threads - the number of worker threads, must be positive
+	 * @throws IllegalArgumentException if threads is not positive
+	 */
+	public BatchSolver(int threads){
+		this(new BitmaskSolver(), new ForkJoinPool(threads), DEFAULT_CHUNK, true);
+	}
+
+	/**
+	 * Creates a BatchSolver using a given engine and its own pool of a given size
+	 * @param solver - the engine used for every puzzle
+	 * @param threads - the number of worker threads, must be positive
+	 * @throws NullPointerException if solver is null
+	 * @throws IllegalArgumentException if threads is not positive
+	 */
+	public BatchSolver(Solver solver, int threads){
+		this(solver, new ForkJoinPool(threads), DEFAULT_CHUNK, true);
+	}
+
+	/**
+	 * Creates a BatchSolver that runs in an existing pool, which it will not shut down
+	 * @param solver - the engine used for every puzzle
+	 * @param pool - the pool to run in
+	 * @param chunk - the number of puzzles read and solved per chunk, must be positive
+	 * @throws NullPointerException if solver or pool is null
+	 * @throws IllegalArgumentException if chunk is not positive
+	 */
+	public BatchSolver(Solver solver, ForkJoinPool pool, int chunk){
+		this(solver, pool, chunk, false);
+	}
+
+	private BatchSolver(Solver solver, ForkJoinPool pool, int chunk, boolean ownsPool){
+		super(pool, chunk, ownsPool);
+		if(solver == null){throw new NullPointerException("solver cannot be null");}
+		this.solver = solver;
+	}
+
+	protected Solution process(int[] values){
+		return this.solver.solve(values);
+	}
+
+	/**
+	 * Solves every puzzle from a PuzzleReader, handing the results to out in input order. The reader is not closed.
+	 * @param in - the source of puzzles
+	 * @param out - receives the Solution of each puzzle
+	 * @return the number of puzzles solved
+	 * @throws NullPointerException if in or out is null
+	 * @throws IllegalStateException if the input cannot be read or is improperly formatted
+	 * @deprecated use run(PuzzleReader, Batch.Handler)
+	 */
+	@Deprecated
+	public long solve(PuzzleReader in, Handler out){
+		return run(in, bridge(out));
+	}
+
+	/**
+	 * Solves every puzzle of a file in any format accepted by PuzzleReader
+	 * @param f - the file to read
+	 * @param out - receives the Solution of each puzzle
+	 * @return the number of puzzles solved
+	 * @throws NullPointerException if f or out is null
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalStateException if the file is improperly formatted
+	 * @deprecated use run(File, Batch.Handler)
+	 */
+	@Deprecated
+	public long solve(File f, Handler out) throws IOException{
+		return run(f, bridge(out));
+	}
+
+	/**
+	 * Solves an iterator of Puzzles, handing the results to out in input order
+	 * @param in - the source of puzzles
+	 * @param out - receives the Solution of each puzzle
+	 * @return the number of puzzles solved
+	 * @throws NullPointerException if in or out is null
+	 * @deprecated use run(Iterator, Batch.Handler)
+	 */
+	@Deprecated
+	public long solve(Iterator<Puzzle> in, Handler out){
+		return run(in, bridge(out));
+	}
+
+	/**
+	 * Adapts a deprecated Handler to Batch.Handler
+	 */
+	@SuppressWarnings("deprecation")
+	private static Batch.Handler<Solution> bridge(final Handler out){
+		if(out == null){throw new NullPointerException("out cannot be null");}
+		return new Batch.Handler<Solution>(){
+			public void done(long index, int[] values, Solution s, long nanos){
+				out.solved(index, values, s, nanos);
+			}
+		};
+	}
+
+	/**
+	 * Solves an array of Puzzles
+	 * @param puzzles - the puzzles to solve, none may be null
+	 * @return the Solution of each puzzle, in the same order
+	 * @throws NullPointerException if puzzles or any of its elements is null
+	 */
+	public Solution[] solve(Puzzle[] puzzles){
+		List<Solution> results = run(puzzles);
+		return results.toArray(new Solution[results.size()]);
+	}
+}
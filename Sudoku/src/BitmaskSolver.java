@@ -0,0 +1,341 @@
+/**
+ * <p>
+ * BitmaskSolver is a backtracking solver that keeps the state of the search in int bitmasks, one for
+ * each row, column and block. Bit (d-1) of a mask is set when digit d has been placed in that unit, so the
+ * candidates of any empty cell are found with two ORs and a NOT, and placing or undoing a digit is three
+ * ORs or three XORs.
+ * </p>
+ * <p>
+ * At every step the solver branches on the empty cell with the fewest candidates. It stops as soon as a
+ * second solution is found, which is enough to tell a unique puzzle from an ambiguous one.
+ * </p>
+ * <p>
+ * Grids of every Layout are solved, 9x9 as well as 4x4, 16x16 and 25x25: the shape is taken from the size of
+ * the array, and a set of up to 25 digits still fits in one int.
+ * </p>
+ * <p>
+ * A BitmaskSolver holds no state between calls and may be shared between threads.
+ * </p>
+ */
+public class BitmaskSolver implements Solver {
+
+	/**
+	 * Solves the given Puzzle. The Puzzle itself is not modified.
+	 * @param p - the Puzzle to solve
+	 * @return a Solution holding the solution count and the first solved grid found
+	 * @throws NullPointerException if p is null
+	 */
+	public Solution solve(Puzzle p){
+		if(p == null){throw new NullPointerException("p cannot be null");}
+		return solve(p.getValues());
+	}
+
+	/**
+	 * Solves a grid given as an array of 81 values in row-major order, where 0 marks an empty cell, or
+	 * side*side values for the other Layouts. The array itself is not modified.
+	 * @param grid - an int array of size 81 containing numbers in the range [0,9], or of size side*side containing numbers in the range [0,side]
+	 * @return a Solution holding the solution count and the first solved grid found
+	 * @throws NullPointerException if grid is null
+	 * @throws IllegalArgumentException if grid is not of a supported size or contains numbers outside the range [0,side]
+	 */
+	public Solution solve(int[] grid){
+		Search s = new Search(grid, Solution.MULTIPLE);
+		if(s.consistent){
+			s.search(0);
+		}
+		return new Solution(s.solution, s.count, s.nodes);
+	}
+
+	/**
+	 * Returns how many solutions the given grid has, stopping once two have been found
+	 * @param grid - an int array of size 81 containing numbers in the range [0,9], or of size side*side containing numbers in the range [0,side]
+	 * @return one of Solution.NONE, Solution.UNIQUE or Solution.MULTIPLE
+	 * @throws NullPointerException if grid is null
+	 * @throws IllegalArgumentException if grid is not of a supported size or contains numbers outside the range [0,side]
+	 */
+	public int countSolutions(int[] grid){
+		return solve(grid).getCount();
+	}
+
+	/**
+	 * Finds any one solution of a grid without checking whether there are others
+	 * @param grid - an int array of size side*side containing numbers in the range [0,side]
+	 * @return a solved grid, or null if there is no solution
+	 */
+	int[] findAny(int[] grid){
+		Search s = new Search(grid, Solution.UNIQUE);
+		if(s.consistent){
+			s.search(0);
+		}
+		return s.solution;
+	}
+
+	/**
+	 * Returns whether a grid can be solved with a given empty cell holding anything other than a given digit.
+	 * If grid with digit placed at cell has exactly one solution, this is false exactly when emptying the cell
+	 * keeps the solution unique, which makes it a cheaper uniqueness test than counting solutions.
+	 * @param grid - an int array of size side*side containing numbers in the range [0,side], with grid[cell] == 0
+	 * @param cell - the index of the cell
+	 * @param digit - the digit the cell may not hold, in the range [1,side]
+	 * @return true if some solution has a different digit at cell
+	 */
+	boolean hasSolutionWithout(int[] grid, int cell, int digit){
+		return hasSolutionWithout(grid, cell, digit, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Like hasSolutionWithout(grid, cell, digit), but gives up after a number of search nodes. A search that
+	 * gives up is answered true, so a caller that only empties cells when this is false never loses uniqueness.
+	 * @param maxNodes - the most calls to search before giving up
+	 * @return true if some solution has a different digit at cell, or if the search gave up before finding out
+	 */
+	boolean hasSolutionWithout(int[] grid, int cell, int digit, long maxNodes){
+		Search s = new Search(grid, Solution.UNIQUE);
+		s.bannedCell = cell;
+		s.bannedBit = 1 << (digit-1);
+		s.maxNodes = maxNodes;
+		if(s.consistent){
+			s.search(0);
+		}
+		return s.count != Solution.NONE || s.abandoned;
+	}
+
+	/**
+	 * The mutable state of a single call to solve
+	 */
+	private static final class Search {
+
+		/**
+		 * The working grid, updated in place as digits are placed and undone
+		 */
+		private final int[] cells;
+
+		/**
+		 * The index tables of the grid's Layout, see Layout
+		 */
+		private final int[] rowOf;
+		private final int[] colOf;
+		private final int[] blockOf;
+		private final int[][] units;
+
+		/**
+		 * The number of digits, and the mask with all of their bits set
+		 */
+		private final int side;
+		private final int all;
+
+		/**
+		 * Occupancy masks of the rows, columns and blocks
+		 */
+		private final int[] rows;
+		private final int[] cols;
+		private final int[] blks;
+
+		/**
+		 * Indices of the empty cells. The cells at positions [0,depth) have been filled by the search.
+		 */
+		private final int[] empty;
+
+		/**
+		 * The candidates of each empty cell at the node being searched, only valid within one call to search
+		 */
+		private final int[] cand;
+
+		/**
+		 * The position in empty of each empty cell
+		 */
+		private final int[] pos;
+
+		/**
+		 * The number of entries in empty
+		 */
+		private final int numEmpty;
+
+		/**
+		 * The search stops once this many solutions have been found
+		 */
+		private final int limit;
+
+		/**
+		 * A cell that may not take the digit bannedBit, or -1 if there is no such cell
+		 */
+		private int bannedCell = -1;
+		private int bannedBit;
+
+		/**
+		 * false if the givens already contain a duplicate digit in some unit
+		 */
+		private boolean consistent = true;
+
+		/**
+		 * The number of solutions found so far, never more than limit
+		 */
+		private int count = Solution.NONE;
+
+		/**
+		 * A copy of the first solution found
+		 */
+		private int[] solution;
+
+		/**
+		 * The number of calls to search
+		 */
+		private long nodes;
+
+		/**
+		 * The search gives up, setting abandoned, once nodes passes maxNodes
+		 */
+		private long maxNodes = Long.MAX_VALUE;
+		private boolean abandoned;
+
+		Search(int[] grid, int limit){
+			if(grid == null){throw new NullPointerException("grid cannot be null");}
+			Layout l = Layout.forSize(grid.length);
+			this.rowOf = l.rowOf;
+			this.colOf = l.colOf;
+			this.blockOf = l.blockOf;
+			this.units = l.cells;
+			this.side = l.side;
+			this.all = l.all;
+			this.rows = new int[l.side];
+			this.cols = new int[l.side];
+			this.blks = new int[l.side];
+			this.cells = grid.clone();
+			this.limit = limit;
+			this.empty = new int[l.size];
+			this.pos = new int[l.size];
+			this.cand = new int[l.size];
+			int n = 0;
+			for(int i = 0; i < l.size; i++){
+				int v = this.cells[i];
+				if(v > l.side || v < 0){throw new IllegalArgumentException("grid cannot contain numbers outside the range [0," + l.side + "]");}
+				if(v == 0){
+					this.pos[i] = n;
+					this.empty[n++] = i;
+					continue;
+				}
+				int bit = 1 << (v-1);
+				if((candidates(i) & bit) == 0){
+					this.consistent = false;
+				}
+				this.rows[this.rowOf[i]] |= bit;
+				this.cols[this.colOf[i]] |= bit;
+				this.blks[this.blockOf[i]] |= bit;
+			}
+			this.numEmpty = n;
+		}
+
+		/**
+		 * @param i - the index of a cell
+		 * @return the digits that can still be placed at i without repeating one in its row, column or block
+		 */
+		int candidates(int i){
+			int mask = ~(this.rows[this.rowOf[i]] | this.cols[this.colOf[i]] | this.blks[this.blockOf[i]]) & this.all;
+			return i == this.bannedCell ? mask & ~this.bannedBit : mask;
+		}
+
+		/**
+		 * Fills the empty cells from position depth onward, recording solutions as they are found
+		 * @param depth - the number of empty cells that have already been filled
+		 */
+		void search(int depth){
+			if(++this.nodes > this.maxNodes){
+				this.abandoned = true;
+				return;
+			}
+			if(depth == this.numEmpty){
+				if(this.count == Solution.NONE){
+					this.solution = this.cells.clone();
+				}
+				this.count++;
+				return;
+			}
+
+			// The fields are read into locals once per node, since the JIT does not treat the final fields of an
+			// object as constants the way it did the static 9x9 tables
+			int[] cells = this.cells;
+			int[] empty = this.empty;
+			int[] cand = this.cand;
+			int[] rows = this.rows, cols = this.cols, blks = this.blks;
+			int[] rowOf = this.rowOf, colOf = this.colOf, blockOf = this.blockOf;
+			int all = this.all;
+			int side = this.side;
+
+			// Pick the remaining cell with the fewest candidates and swap it to position depth, keeping the
+			// candidates of every cell for the hidden single scan
+			int best = depth;
+			int bestMask = 0;
+			int bestCount = side + 1;
+			for(int k = depth; k < this.numEmpty; k++){
+				int i = empty[k];
+				int mask = ~(rows[rowOf[i]] | cols[colOf[i]] | blks[blockOf[i]]) & all;
+				if(i == this.bannedCell){
+					mask &= ~this.bannedBit;
+				}
+				cand[i] = mask;
+				int c = Integer.bitCount(mask);
+				if(c < bestCount){
+					best = k;
+					bestMask = mask;
+					bestCount = c;
+					if(c <= 1){break;}
+				}
+			}
+			if(bestCount == 0){return;}
+
+			// Without a naked single, look for a digit that fits in only one cell of some unit. The scan above
+			// ran to the end, so cand holds the candidates of every empty cell.
+			if(bestCount > 1){
+				int[][] units = this.units;
+				for(int u = 0; u < units.length; u++){
+					int[] unit = units[u];
+					int once = 0, twice = 0;
+					for(int i : unit){
+						if(cells[i] == 0){
+							int mask = cand[i];
+							twice |= once & mask;
+							once |= mask;
+						}
+					}
+					int placed = u < side ? rows[u] : (u < 2*side ? cols[u-side] : blks[u-2*side]);
+					// A digit that is missing from the unit and fits nowhere means this branch is dead
+					if((~placed & all & ~once) != 0){return;}
+					int hidden = once & ~twice;
+					if(hidden != 0){
+						bestMask = hidden & -hidden;
+						for(int i : unit){
+							if(cells[i] == 0 && (cand[i] & bestMask) != 0){
+								best = this.pos[i];
+								break;
+							}
+						}
+						break;
+					}
+				}
+			}
+
+			int i = empty[best];
+			int j = empty[depth];
+			empty[best] = j;
+			this.pos[j] = best;
+			empty[depth] = i;
+			this.pos[i] = depth;
+
+			int r = rowOf[i], c = colOf[i], b = blockOf[i];
+			while(bestMask != 0){
+				int bit = bestMask & -bestMask;
+				bestMask ^= bit;
+				rows[r] |= bit;
+				cols[c] |= bit;
+				blks[b] |= bit;
+				cells[i] = Integer.numberOfTrailingZeros(bit) + 1;
+				search(depth+1);
+				rows[r] ^= bit;
+				cols[c] ^= bit;
+				blks[b] ^= bit;
+				if(this.count >= this.limit || this.abandoned){break;}
+			}
+			cells[i] = 0;
+		}
+	}
+}
@@ -1,14 +1,135 @@
 import java.util.*;
 import java.io.*;
 import javax.swing.*;
+import java.util.concurrent.*;
 
+/**
+ * Board connects a Puzzle to the window that shows it. Slow work, such as reading a puzzle from a file or solving
+ * it, is done by a SwingWorker on a background thread and its result is handed back on the event thread, so the
+ * window never stalls. At most one such task runs at a time; starting another cancels the one running. Every
+ * method must be called on the event thread.
+ */
 public class Board {
 	
 	private PuzzleContentPane board;
 	private Puzzle puzzle;
 	
+	/**
+	 * The background task running, or null if there is none
+	 */
+	private SwingWorker<?, ?> task;
+	
 	public Board(Puzzle p){
+		if(p == null){throw new NullPointerException("p cannot be null");}
 		puzzle = p;
 		board = new PuzzleContentPane(p);
 	}
+	
+	/**
+	 * @return the Puzzle being shown
+	 */
+	public Puzzle getPuzzle(){
+		return puzzle;
+	}
+	
+	/**
+	 * Shows another Puzzle
+	 * @param p - the Puzzle to show
+	 * @throws NullPointerException if p is null
+	 */
+	public void setPuzzle(Puzzle p){
+		if(p == null){throw new NullPointerException("p cannot be null");}
+		puzzle = p;
+		board.setPuzzle(p);
+	}
+	
+	/**
+	 * Reads the first puzzle of a file in the background and shows it once it has been read. Errors are reported
+	 * in a dialog, and the Puzzle shown is kept.
+	 * @param f - the file to read
+	 * @return the worker reading the file, already started
+	 * @throws NullPointerException if f is null
+	 */
+	public LoadWorker load(File f){
+		LoadWorker w = new LoadWorker(f){
+			protected void done(){
+				if(isCancelled()){return;}
+				try{
+					setPuzzle(get());
+				}catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+				}catch(ExecutionException e){
+					board.showError("Could not load " + getFile().getName() + ": " + e.getCause().getMessage());
+				}
+			}
+		};
+		start(w);
+		return w;
+	}
+	
+	/**
+	 * Solves the Puzzle shown in the background and fills in its solution, as one change, once it has been found.
+	 * If the Puzzle was changed in the meantime, the solution is dropped.
+	 * @param s - the engine to solve with
+	 * @return the worker solving the Puzzle, already started
+	 * @throws NullPointerException if s is null
+	 */
+	public SolveWorker solve(Solver s){
+		SolveWorker w = new SolveWorker(s, puzzle){
+			protected void done(){
+				if(isCancelled() || getPuzzle() != puzzle || !isCurrent()){return;}
+				try{
+					Solution sol = get();
+					if(!sol.isSolvable()){
+						board.showError("The puzzle has no solution");
+						return;
+					}
+					fill(sol.getGrid());
+				}catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+				}catch(ExecutionException e){
+					board.showError("Could not solve the puzzle: " + e.getCause().getMessage());
+				}
+			}
+		};
+		start(w);
+		return w;
+	}
+	
+	/**
+	 * Cancels the background task running, if there is one
+	 */
+	public void cancel(){
+		if(task != null){
+			task.cancel(true);
+			task = null;
+		}
+	}
+	
+	/**
+	 * Cancels the task running and starts another, showing its progress
+	 */
+	private void start(SwingWorker<?, ?> w){
+		cancel();
+		task = w;
+		board.track(w);
+		w.execute();
+	}
+	
+	/**
+	 * Sets the values of every Cell that is not a given in a single batch, so the view repaints once
+	 */
+	private void fill(int[] values){
+		Grid g = puzzle.getGrid();
+		puzzle.beginBatch();
+		try{
+			for(int i = 0; i < values.length; i++){
+				if(!g.isFixed(i)){
+					g.setValue(i, values[i]);
+				}
+			}
+		}finally{
+			puzzle.endBatch();
+		}
+	}
 }
@@ -0,0 +1,265 @@
+import java.awt.*;
+import javax.swing.*;
+
+/**
+ * <p>
+ * BoardComponent draws a whole Puzzle in one component: the grid lines, the value of every filled Cell and the
+ * pencil marks of every empty one are painted directly in paintComponent, instead of using one panel and one
+ * label per Cell.
+ * </p>
+ * <p>
+ * The component listens to its Puzzle, see CellListener. Each CellEvent replaces the Snapshot being shown and
+ * repaints only the rectangles of the Cells it names, so a single move costs one small repaint no matter how large
+ * the board is, and a bulk change such as fillPencilMarks costs one event. Repaints requested before the next
+ * paint are merged by Swing. Painting itself always reads from a Snapshot, never from the Puzzle being changed,
+ * so the Puzzle may be changed from another thread.
+ * </p>
+ * <p>
+ * Givens are drawn in black, other values in blue, and pencil marks in small gray digits laid out like the
+ * blocks of the puzzle. Any Layout is supported.
+ * </p>
+ */
+public class BoardComponent extends JComponent {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The preferred width and height of one Cell in pixels
+	 */
+	public static final int CELL_SIZE = 50;
+
+	private static final Color GIVEN = Color.BLACK;
+	private static final Color ENTERED = new Color(0x1F4E9C);
+	private static final Color MARK = Color.GRAY;
+	private static final Color THIN = Color.LIGHT_GRAY;
+	private static final Color THICK = Color.BLACK;
+
+	/**
+	 * The Puzzle being shown
+	 */
+	private Puzzle puzzle;
+
+	/**
+	 * The state of the Puzzle as last painted or scheduled to be painted
+	 */
+	private volatile Snapshot shown;
+
+	/**
+	 * Repaints the Cells named by every change of the Puzzle
+	 */
+	private final CellListener listener = new CellListener(){
+		public void cellsChanged(CellEvent e){
+			BoardComponent.this.cellsChanged(e);
+		}
+	};
+
+	/**
+	 * The fonts for values and pencil marks, and the cell size they were made for
+	 */
+	private Font valueFont;
+	private Font markFont;
+	private int fontCell = -1;
+
+	/**
+	 * Creates a component showing a Puzzle
+	 * @param p - the Puzzle to show
+	 * @throws NullPointerException if p is null
+	 */
+	public BoardComponent(Puzzle p){
+		setPuzzle(p);
+		setOpaque(true);
+		setBackground(Color.WHITE);
+	}
+
+	/**
+	 * Shows another Puzzle, repainting the whole component. The component stops listening to the Puzzle shown before.
+	 * @param p - the Puzzle to show
+	 * @throws NullPointerException if p is null
+	 */
+	public void setPuzzle(Puzzle p){
+		if(p == null){throw new NullPointerException("p cannot be null");}
+		if(this.puzzle != null){
+			this.puzzle.removeCellListener(this.listener);
+		}
+		p.addCellListener(this.listener);
+		this.puzzle = p;
+		this.shown = p.snapshot();
+		int side = p.getLayout().getSide();
+		setPreferredSize(new Dimension(side*CELL_SIZE + 1, side*CELL_SIZE + 1));
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * @return the Puzzle being shown
+	 */
+	public Puzzle getPuzzle(){
+		return this.puzzle;
+	}
+
+	/**
+	 * Brings the component up to date with the Puzzle, repainting only the Cells whose value, pencil marks or
+	 * given status differ from those shown. Changes are normally followed as they happen, so this only finds
+	 * something if the Puzzle's Grid was replaced or its listener removed.
+	 * @return the number of Cells repainted
+	 */
+	public int refresh(){
+		Snapshot old = this.shown;
+		Snapshot now = this.puzzle.snapshot();
+		if(now == old){return 0;}
+		this.shown = now;
+		int side = this.puzzle.getLayout().getSide();
+		int changed = 0;
+		for(int i = 0; i < side*side; i++){
+			if(old.getValue(i) != now.getValue(i) || old.getMarks(i) != now.getMarks(i) || old.isFixed(i) != now.isFixed(i)){
+				repaintCell(i/side, i%side);
+				changed++;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Shows the state of the Puzzle after a change and repaints the Cells the change touched
+	 */
+	private void cellsChanged(CellEvent e){
+		if(e.getGrid() != this.puzzle.getGrid()){return;}
+		this.shown = e.getGrid().snapshot();
+		int side = e.getGrid().getLayout().getSide();
+		for(int i = e.nextCell(0); i >= 0; i = e.nextCell(i+1)){
+			repaintCell(i/side, i%side);
+		}
+	}
+
+	/**
+	 * Repaints the Cell at a location the next time the component is painted
+	 * @param x - the row of the Cell, must be in the range [0,side)
+	 * @param y - the column of the Cell, must be in the range [0,side)
+	 * @throws IllegalArgumentException if x or y are not in the specified ranges
+	 */
+	public void repaintCell(int x, int y){
+		Rectangle r = getCellBounds(x, y);
+		// One pixel more on every side covers the grid lines around the Cell
+		repaint(r.x - 1, r.y - 1, r.width + 2, r.height + 2);
+	}
+
+	/**
+	 * Returns the rectangle a Cell is painted in, for the current size of the component
+	 * @param x - the row of the Cell, must be in the range [0,side)
+	 * @param y - the column of the Cell, must be in the range [0,side)
+	 * @return a new Rectangle whose edges are the grid lines around the Cell
+	 * @throws IllegalArgumentException if x or y are not in the specified ranges
+	 */
+	public Rectangle getCellBounds(int x, int y){
+		int side = this.puzzle.getLayout().getSide();
+		if(x >= side || x < 0 || y >= side || y < 0){throw new IllegalArgumentException("Index out of bounds");}
+		int cell = cellSize();
+		return new Rectangle(left() + y*cell, top() + x*cell, cell, cell);
+	}
+
+	protected void paintComponent(Graphics g){
+		Snapshot s = this.shown;
+		Layout l = this.puzzle.getLayout();
+		int side = l.getSide();
+		int box = l.getBox();
+		int cell = cellSize();
+		int left = left();
+		int top = top();
+		Rectangle clip = g.getClipBounds();
+		if(clip == null){
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		g.setColor(getBackground());
+		g.fillRect(clip.x, clip.y, clip.width, clip.height);
+		if(cell < 2){return;}
+		if(g instanceof Graphics2D){
+			((Graphics2D) g).setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		}
+		updateFonts(cell, box);
+
+		// Only the Cells that meet the clip are drawn
+		int x0 = Math.max(0, (clip.y - top)/cell);
+		int x1 = Math.min(side - 1, (clip.y + clip.height - top)/cell);
+		int y0 = Math.max(0, (clip.x - left)/cell);
+		int y1 = Math.min(side - 1, (clip.x + clip.width - left)/cell);
+		for(int x = x0; x <= x1; x++){
+			for(int y = y0; y <= y1; y++){
+				paintCell(g, s, x*side + y, left + y*cell, top + x*cell, cell, box);
+			}
+		}
+
+		// Thin lines between Cells, then thick lines between blocks on top of them
+		int size = side*cell;
+		g.setColor(THIN);
+		for(int k = 1; k < side; k++){
+			if(k%box != 0){
+				g.drawLine(left + k*cell, top, left + k*cell, top + size);
+				g.drawLine(left, top + k*cell, left + size, top + k*cell);
+			}
+		}
+		g.setColor(THICK);
+		for(int k = 0; k <= side; k += box){
+			g.fillRect(left + k*cell - 1, top - 1, 2, size + 2);
+			g.fillRect(left - 1, top + k*cell - 1, size + 2, 2);
+		}
+	}
+
+	/**
+	 * Draws the value or the pencil marks of cell i in the square at (px,py)
+	 */
+	private void paintCell(Graphics g, Snapshot s, int i, int px, int py, int cell, int box){
+		int v = s.getValue(i);
+		if(v != 0){
+			g.setFont(this.valueFont);
+			g.setColor(s.isFixed(i) ? GIVEN : ENTERED);
+			drawCentered(g, Render.pretty(v), px, py, cell);
+			return;
+		}
+		int marks = s.getMarks(i);
+		if(marks == 0){return;}
+		g.setFont(this.markFont);
+		g.setColor(MARK);
+		int sub = cell/box;
+		while(marks != 0){
+			int bit = marks & -marks;
+			marks ^= bit;
+			int m = Integer.numberOfTrailingZeros(bit);
+			drawCentered(g, Render.pretty(m + 1), px + (m%box)*sub, py + (m/box)*sub, sub);
+		}
+	}
+
+	private static void drawCentered(Graphics g, char c, int px, int py, int size){
+		FontMetrics fm = g.getFontMetrics();
+		int w = fm.charWidth(c);
+		g.drawString(String.valueOf(c), px + (size - w)/2, py + (size - fm.getHeight())/2 + fm.getAscent());
+	}
+
+	/**
+	 * Makes the fonts for a cell size, if it changed since they were last made
+	 */
+	private void updateFonts(int cell, int box){
+		if(cell == this.fontCell){return;}
+		Font base = getFont() != null ? getFont() : new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+		this.valueFont = base.deriveFont(Font.BOLD, cell*0.6f);
+		this.markFont = base.deriveFont(Font.PLAIN, Math.max(6f, cell*0.7f/box));
+		this.fontCell = cell;
+	}
+
+	/**
+	 * The size of one Cell so that the whole board fits in the component
+	 */
+	private int cellSize(){
+		int side = this.puzzle.getLayout().getSide();
+		return Math.max(0, (Math.min(getWidth(), getHeight()) - 1)/side);
+	}
+
+	/**
+	 * The left and top edges of the board, which is centered in the component
+	 */
+	private int left(){
+		return (getWidth() - cellSize()*this.puzzle.getLayout().getSide())/2;
+	}
+
+	private int top(){
+		return (getHeight() - cellSize()*this.puzzle.getLayout().getSide())/2;
+	}
+}
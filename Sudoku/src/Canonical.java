@@ -0,0 +1,430 @@
+import java.util.*;
+
+/**
+ * <p>
+ * A Canonical is the canonical form of a puzzle: of all the grids that are the same puzzle up to symmetry, the
+ * one whose 81 values, read in row-major order, are the smallest, where an empty cell counts as larger than
+ * every digit. The canonical grid therefore has its givens packed towards the top left, and its first given
+ * is always 1. Two puzzles are equivalent exactly when their
+ * canonical forms are equal, so the canonical form, or its hash, can be used as a key to find duplicates in a
+ * bank or to cache solutions and grades. Only standard 9x9 puzzles have a canonical form here.
+ * </p>
+ * <p>
+ * The symmetries are the ones that always map a valid puzzle to a valid puzzle: relabeling the digits, permuting
+ * the rows within a band, permuting the bands, the same for columns and stacks, and transposing. Together these
+ * make 2 * 1296 * 1296 * 9! equivalent grids.
+ * </p>
+ * <p>
+ * For a fixed arrangement of the cells, the smallest relabeling is the one that numbers the digits 1, 2, 3, ...
+ * in the order they first appear, so only the arrangements need to be searched. The search builds the first row
+ * one cell at a time over every transposition, row and column order, then the other rows one row at a time. At
+ * each step it keeps only the partial arrangements whose cells so far are the smallest possible, dropping those
+ * that can no longer differ from each other. Ordering empty cells last makes the fullest rows come first, which
+ * leaves few ties: a typical puzzle of 20 to 30 givens takes 100 to 200 microseconds. The search stops as soon as
+ * every given has been placed, since the remaining rows are then empty in every arrangement, and an empty grid
+ * needs no search at all. Complete grids are the slow case: every arrangement ties on the first row, and they
+ * take 10 to 30 milliseconds.
+ * </p>
+ * <p>
+ * A Canonical is immutable.
+ * </p>
+ */
+public final class Canonical {
+
+	/**
+	 * The 1296 column permutations: column COLUMN_ORDERS[p][j] of the original is column j of the result
+	 */
+	private static final int[][] COLUMN_ORDERS = new int[1296][9];
+
+	/**
+	 * The 6 permutations of {0, 1, 2}
+	 */
+	private static final int[][] PERMS = {{0,1,2}, {0,2,1}, {1,0,2}, {1,2,0}, {2,0,1}, {2,1,0}};
+
+	static{
+		int p = 0;
+		for(int[] stacks : PERMS){
+			for(int[] a : PERMS){
+				for(int[] b : PERMS){
+					for(int[] c : PERMS){
+						int[][] within = {a, b, c};
+						for(int j = 0; j < 9; j++){
+							COLUMN_ORDERS[p][j] = stacks[j/3]*3 + within[j/3][j%3];
+						}
+						p++;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * The value an empty cell has while searching, so that it orders after every digit
+	 */
+	private static final int EMPTY = 10;
+
+	/**
+	 * Layout of a search state packed into a long: bits 0-35 the digit labels (4 bits per digit, 0 if the digit
+	 * has not appeared yet), bits 36-44 the rows already used, bits 45-48 the last row used, bits 49-59 the
+	 * column permutation and bit 60 set if the grid is transposed
+	 */
+	private static final int USED_SHIFT = 36;
+	private static final int LAST_SHIFT = 45;
+	private static final int PERM_SHIFT = 49;
+	private static final int TRANSPOSE_SHIFT = 60;
+	private static final long LABELS = (1L << 36) - 1;
+
+	/**
+	 * The canonical values in row-major order
+	 */
+	private final byte[] values;
+
+	/**
+	 * Two independent 64 bit hashes of the values
+	 */
+	private final long hashHigh;
+	private final long hashLow;
+
+	private Canonical(int[] v){
+		this.values = new byte[81];
+		long h1 = 0x9E3779B97F4A7C15L, h2 = 0xC2B2AE3D27D4EB4FL;
+		long word = 0;
+		for(int i = 0; i < 81; i++){
+			this.values[i] = (byte) v[i];
+			word = word << 4 | v[i];
+			if(i % 16 == 15 || i == 80){
+				h1 = mix(h1 ^ word);
+				h2 = mix(h2 + word * 0xFF51AFD7ED558CCDL);
+				word = 0;
+			}
+		}
+		this.hashHigh = h1;
+		this.hashLow = h2;
+	}
+
+	/**
+	 * Finds the canonical form of a Puzzle
+	 * @param p - the Puzzle
+	 * @return the canonical form of the puzzle's values
+	 * @throws NullPointerException if p is null
+	 */
+	public static Canonical of(Puzzle p){
+		if(p == null){throw new NullPointerException("p cannot be null");}
+		return of(p.getValues());
+	}
+
+	/**
+	 * Finds the canonical form of a grid given as an array of 81 values in row-major order, where 0 marks an
+	 * empty cell. Only the values are considered, not whether the puzzle is valid or solvable.
+	 * @param values - an int array of size 81 containing numbers in the range [0,9]
+	 * @return the canonical form
+	 * @throws NullPointerException if values is null
+	 * @throws IllegalArgumentException if values is not of size 81 or contains numbers outside the range [0,9]
+	 */
+	public static Canonical of(int[] values){
+		if(values == null){throw new NullPointerException("values cannot be null");}
+		if(values.length != 81){throw new IllegalArgumentException("values must be of size 81");}
+		int[][] grids = new int[2][81];
+		int givens = 0;
+		for(int i = 0; i < 81; i++){
+			if(values[i] > 9 || values[i] < 0){throw new IllegalArgumentException("values cannot contain numbers outside the range [0,9]");}
+			grids[0][i] = values[i];
+			grids[1][(i%9)*9 + i/9] = values[i];
+			if(values[i] != 0){
+				givens++;
+			}
+		}
+
+		int[] result = new int[81];
+		// Every arrangement of an empty grid is the same, so there is nothing to search
+		if(givens == 0){return new Canonical(result);}
+		long[] states = firstRow(grids, result);
+		int placed = placed(result, 0);
+		int n = states.length;
+		int[] best = new int[9];
+		int[] row = new int[9];
+		long[] next = new long[Math.max(64, n)];
+		// Once every given has been placed the remaining rows are empty whatever the arrangement
+		for(int k = 1; k < 9 && placed < givens; k++){
+			int m = 0;
+			boolean first = true;
+			for(int s = 0; s < n; s++){
+				long state = states[s];
+				int[] g = grids[(int) (state >>> TRANSPOSE_SHIFT) & 1];
+				int[] order = COLUMN_ORDERS[(int) (state >>> PERM_SHIFT) & 0x7FF];
+				int used = (int) (state >>> USED_SHIFT) & 0x1FF;
+				int last = (int) (state >>> LAST_SHIFT) & 0xF;
+				int labelled = labelCount(state & LABELS);
+				for(int r = 0; r < 9; r++){
+					if((used & (1 << r)) != 0){continue;}
+					// The first row of each band may come from any unused band, the others must finish the band
+					if(k % 3 != 0 && r/3 != last/3){continue;}
+					long labels = state & LABELS;
+					int label = labelled;
+					int cmp = first ? -1 : 0;
+					for(int j = 0; j < 9; j++){
+						int v = g[r*9 + order[j]];
+						int out = EMPTY;
+						if(v != 0){
+							out = (int) (labels >>> ((v-1) << 2)) & 0xF;
+							if(out == 0){
+								out = ++label;
+								labels |= (long) out << ((v-1) << 2);
+							}
+						}
+						row[j] = out;
+						if(cmp == 0 && out != best[j]){
+							cmp = out < best[j] ? -1 : 1;
+							if(cmp > 0){break;}
+						}
+					}
+					if(cmp > 0){continue;}
+					if(cmp < 0){
+						System.arraycopy(row, 0, best, 0, 9);
+						m = 0;
+						first = false;
+					}
+					if(m == next.length){
+						next = Arrays.copyOf(next, m*2);
+					}
+					next[m++] = (state & ~(LABELS | 0xFL << LAST_SHIFT)) | labels
+							| 1L << (USED_SHIFT + r) | (long) r << LAST_SHIFT;
+				}
+			}
+			System.arraycopy(best, 0, result, k*9, 9);
+			placed += placed(result, k);
+
+			// Drop states that are now the same, as they can no longer lead to different grids
+			Arrays.sort(next, 0, m);
+			int u = 0;
+			for(int s = 0; s < m; s++){
+				if(u == 0 || next[s] != next[u-1]){
+					next[u++] = next[s];
+				}
+			}
+			if(states.length < u){
+				states = new long[next.length];
+			}
+			System.arraycopy(next, 0, states, 0, u);
+			n = u;
+		}
+		for(int i = 0; i < 81; i++){
+			if(result[i] == EMPTY){
+				result[i] = 0;
+			}
+		}
+		return new Canonical(result);
+	}
+
+	/**
+	 * @return the number of givens in row k of the result
+	 */
+	private static int placed(int[] result, int k){
+		int n = 0;
+		for(int j = k*9; j < k*9 + 9; j++){
+			if(result[j] != EMPTY){
+				n++;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Finds the smallest first row, trying every transposition, row and column order one cell at a time. At
+	 * each cell only the partial orders that give the smallest value so far are kept, so the 1296 column orders
+	 * are rarely all built. The smallest row is stored in result.
+	 * @return the search states of every way to reach the smallest first row
+	 */
+	private static long[] firstRow(int[][] grids, int[] result){
+		// A partial order: which grid and row, the columns chosen so far (4 bits each, first at the bottom),
+		// the columns used, the digit labels and the number of labels given
+		int cap = 64;
+		int[] gridRow = new int[cap], used = new int[cap], labelled = new int[cap];
+		long[] columns = new long[cap], labels = new long[cap];
+		int n = 0;
+		for(int t = 0; t < 2; t++){
+			for(int r = 0; r < 9; r++){
+				gridRow[n++] = t*9 + r;
+			}
+		}
+		int[] gridRow2 = new int[cap], used2 = new int[cap], labelled2 = new int[cap];
+		long[] columns2 = new long[cap], labels2 = new long[cap];
+
+		for(int j = 0; j < 9; j++){
+			int min = Integer.MAX_VALUE;
+			int m = 0;
+			for(int s = 0; s < n; s++){
+				int[] g = grids[gridRow[s] / 9];
+				int r = gridRow[s] % 9;
+				int free;
+				if(j % 3 == 0){
+					// Any column of a stack that has not been used
+					free = 0;
+					for(int st = 0; st < 3; st++){
+						if((used[s] & (7 << (st*3))) == 0){
+							free |= 7 << (st*3);
+						}
+					}
+				}else{
+					int st = (int) (columns[s] >>> ((j-1) << 2) & 0xF) / 3;
+					free = 7 << (st*3) & ~used[s];
+				}
+				while(free != 0){
+					int c = Integer.numberOfTrailingZeros(free);
+					free &= free - 1;
+					int v = g[r*9 + c];
+					long l = labels[s];
+					int count = labelled[s];
+					int out = EMPTY;
+					if(v != 0){
+						out = (int) (l >>> ((v-1) << 2)) & 0xF;
+						if(out == 0){
+							out = ++count;
+							l |= (long) out << ((v-1) << 2);
+						}
+					}
+					if(out > min){continue;}
+					if(out < min){
+						min = out;
+						m = 0;
+					}
+					if(m == gridRow2.length){
+						int size = m*2;
+						gridRow2 = Arrays.copyOf(gridRow2, size);
+						used2 = Arrays.copyOf(used2, size);
+						labelled2 = Arrays.copyOf(labelled2, size);
+						columns2 = Arrays.copyOf(columns2, size);
+						labels2 = Arrays.copyOf(labels2, size);
+					}
+					gridRow2[m] = gridRow[s];
+					used2[m] = used[s] | 1 << c;
+					labelled2[m] = count;
+					columns2[m] = columns[s] | (long) c << (j << 2);
+					labels2[m] = l;
+					m++;
+				}
+			}
+			result[j] = min;
+
+			int[] ti = gridRow; gridRow = gridRow2; gridRow2 = ti;
+			ti = used; used = used2; used2 = ti;
+			ti = labelled; labelled = labelled2; labelled2 = ti;
+			long[] tl = columns; columns = columns2; columns2 = tl;
+			tl = labels; labels = labels2; labels2 = tl;
+			n = m;
+		}
+
+		long[] states = new long[n];
+		for(int s = 0; s < n; s++){
+			long t = gridRow[s] / 9;
+			long r = gridRow[s] % 9;
+			states[s] = t << TRANSPOSE_SHIFT | (long) permIndex(columns[s]) << PERM_SHIFT
+					| 1L << (USED_SHIFT + r) | r << LAST_SHIFT | labels[s];
+		}
+		return states;
+	}
+
+	/**
+	 * Returns the index in COLUMN_ORDERS of a column order given as 9 columns of 4 bits each, first at the bottom
+	 */
+	private static int permIndex(long columns){
+		int p = indexOf((int) (columns & 0xF) / 3, (int) (columns >>> 12 & 0xF) / 3, (int) (columns >>> 24 & 0xF) / 3);
+		for(int st = 0; st < 3; st++){
+			long c = columns >>> (st*12);
+			p = p*6 + indexOf((int) (c & 0xF) % 3, (int) (c >>> 4 & 0xF) % 3, (int) (c >>> 8 & 0xF) % 3);
+		}
+		return p;
+	}
+
+	/**
+	 * Returns the index in PERMS of the permutation {a, b, c}
+	 */
+	private static int indexOf(int a, int b, int c){
+		for(int i = 0; i < 6; i++){
+			if(PERMS[i][0] == a && PERMS[i][1] == b && PERMS[i][2] == c){
+				return i;
+			}
+		}
+		throw new AssertionError();
+	}
+
+	/**
+	 * @return the number of digits that have been given a label
+	 */
+	private static int labelCount(long labels){
+		int c = 0;
+		while(labels != 0){
+			if((labels & 0xF) != 0){
+				c++;
+			}
+			labels >>>= 4;
+		}
+		return c;
+	}
+
+	/**
+	 * The finalizer of MurmurHash3, spreads every input bit over the whole output
+	 */
+	private static long mix(long h){
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * @return the canonical values in row-major order, as a new array
+	 */
+	public int[] getValues(){
+		int[] v = new int[81];
+		for(int i = 0; i < 81; i++){
+			v[i] = this.values[i];
+		}
+		return v;
+	}
+
+	/**
+	 * @return a new Puzzle holding the canonical values
+	 */
+	public Puzzle toPuzzle(){
+		return new Puzzle(getValues());
+	}
+
+	/**
+	 * @return the high 64 bits of a 128 bit hash of the canonical form
+	 */
+	public long getHashHigh(){
+		return this.hashHigh;
+	}
+
+	/**
+	 * @return the low 64 bits of a 128 bit hash of the canonical form
+	 */
+	public long getHashLow(){
+		return this.hashLow;
+	}
+
+	public boolean equals(Object o){
+		if(this == o){return true;}
+		if(!(o instanceof Canonical)){return false;}
+		Canonical c = (Canonical) o;
+		return this.hashHigh == c.hashHigh && this.hashLow == c.hashLow && Arrays.equals(this.values, c.values);
+	}
+
+	public int hashCode(){
+		return (int) (this.hashHigh ^ (this.hashHigh >>> 32));
+	}
+
+	/**
+	 * @return the 81 canonical values in row-major order as digits, with 0 for an empty cell
+	 */
+	public String toString(){
+		StringBuilder sb = new StringBuilder(81);
+		for(int i = 0; i < 81; i++){
+			sb.append((char) ('0' + this.values[i]));
+		}
+		return sb.toString();
+	}
+}
@@ -4,7 +4,9 @@ import java.io.*;
 
 /**
  * At any given time a given Cell will contain either a permanent value
- * or some number of pencil marks.
+ * or some number of pencil marks. A Cell belongs to a puzzle of some Layout,
+ * the standard 9x9 one unless another is given, which sets the largest value
+ * and pencil mark it can hold.
  * 
  * @author Jeffrey Cohen
  */
@@ -12,39 +14,36 @@ public class Cell {
 	
 	/**
 	 * <p>
-	 * pencil will be an array of 9 booleans, corresponding to the possible
-	 * values of 1-9 that can be penciled in to a given Cell. For a given
-	 * value n, a Cell contains the pencil mark of the corresponding value n
-	 * if pencil[n-1] == true.
+	 * pencil is a bitmask of the possible values of 1-side that can be penciled
+	 * in to a given Cell. For a given value n, a Cell contains the pencil mark
+	 * of the corresponding value n if bit (n-1) of pencil is set.
 	 * </p>
 	 * <p>
 	 * The contents of pencil will not be overwritten when value > 0, but will
 	 * not be displayed in the GUI, as displaying value takes precedence.
 	 * </p>
 	 */
-	private boolean[] pencil;
+	private int pencil;
 	
 	/**
-	 * value is an int in the range [0,9]. If value == 0 then the Cell
+	 * value is an int in the range [0,side]. If value == 0 then the Cell
 	 * currently has pencil marks and no permanent value assigned to it.
 	 */
 	private int value;
 	
 	/**
-	 * This boolean specifies if the value of this Cell can be changed
+	 * The number of values of the puzzle this Cell belongs to, 9 for the standard puzzle
 	 */
-	public final boolean isPerm = false;
+	private final int side;
+	
 	
 	/**
-	 * The default constructor initializes value to 0 and all elements in pencil to false.
-	 * There are not to be any null values in value or pencil.
+	 * The default constructor initializes value to 0 and clears all pencil marks.
 	 */
 	public Cell(){
 		this.value = 0;
-		this.pencil = new boolean[9];
-		for(int i = 0; i < 9; i++){
-			this.pencil[i] = false;
-		}
+		this.pencil = 0;
+		this.side = 9;
 	}
 	
 	/**
@@ -53,12 +52,22 @@ public class Cell {
 	 * @throws IllegalArgumentException if v is outside the range [0,9]
 	 */
 	public Cell(int v){
-		if(v > 9 || v < 0){throw new IllegalArgumentException("v must be in the range [0,9]");}
+		this(v, Layout.STANDARD);
+	}
+	
+	/**
+	 * Create a Cell of a puzzle of any Layout with a set value v
+	 * @param v - an integer in the range [0,side] of l
+	 * @param l - the shape of the puzzle the Cell belongs to
+	 * @throws NullPointerException if l is null
+	 * @throws IllegalArgumentException if v is outside the range [0,side]
+	 */
+	public Cell(int v, Layout l){
+		if(l == null){throw new NullPointerException("l cannot be null");}
+		if(v > l.side || v < 0){throw new IllegalArgumentException("v must be in the range [0," + l.side + "]");}
 		this.value = v;
-		this.pencil = new boolean[9];
-		for(int i = 0; i < 9; i++){
-			this.pencil[i] = false;
-		}
+		this.pencil = 0;
+		this.side = l.side;
 	}
 	
 	/**
@@ -68,29 +77,44 @@ public class Cell {
 	 * @throws NullPointerException if pencilMarks is null
 	 */
 	public Cell(int[] pencilMarks){
-		if(pencilMarks == null){throw new NullPointerException("pencilMarks cannot be null");}
-		if(pencilMarks.length > 9){throw new IllegalArgumentException("pencilMarks cannot have a length > 9");}
-		
-		// Initialize pencil to default state
-		this.pencil = new boolean[9];
-		for(int i = 0; i < 9; i++){
-			this.pencil[i] = false;
-		}
-		
-		// Fill pencil according to pencilMarks
-		for(int i : pencilMarks){
-			if(i > 9 || i < 1){throw new IllegalArgumentException("pencilMarks cannot contain numbers outside the range [1,9]");}
-			if(this.pencil[i-1]){throw new IllegalArgumentException("pencilMarks cannot contain duplicate elements");}
-			this.pencil[i-1] = true;
-		}
+		this(pencilMarks, Layout.STANDARD);
+	}
+	
+	/**
+	 * Create a Cell of a puzzle of any Layout with pencil marks according to an array of integers
+	 * @param pencilMarks - an array of integers. Must be of size side or less, and contain numbers in the range [1,side] with no duplicates
+	 * @param l - the shape of the puzzle the Cell belongs to
+	 * @throws IllegalArgumentException if pencilMarks contains duplicates, is of a size greater than side, or contains numbers outside the range [1,side]
+	 * @throws NullPointerException if pencilMarks or l is null
+	 */
+	public Cell(int[] pencilMarks, Layout l){
+		if(l == null){throw new NullPointerException("l cannot be null");}
+		this.pencil = maskOf(pencilMarks, l.side);
+		this.side = l.side;
 		
 		// Value will be initialized to zero
 		this.value = 0;
 	}
 	
+	/**
+	 * Returns the largest value and pencil mark this Cell can hold
+	 * @return the number of values of the puzzle this Cell belongs to, 9 for the standard puzzle
+	 */
+	protected int getSide(){
+		return this.side;
+	}
+	
+	/**
+	 * Returns whether the value of this Cell is a given that can never change
+	 * @return false, see PermCell
+	 */
+	public boolean isPerm(){
+		return false;
+	}
+	
 	/**
 	 * Returns the value of this
-	 * @return an int in the range [0,9]
+	 * @return an int in the range [0,side]
 	 */
 	public int getValue(){
 		return this.value;
@@ -98,81 +122,110 @@ public class Cell {
 	
 	/**
 	 * Sets the value of this to a given int v.
-	 * @param v - an int in the range [0,9]
-	 * @throws IllegalArgumentException if v is outside the range [0,9]
+	 * @param v - an int in the range [0,side]
+	 * @throws IllegalArgumentException if v is outside the range [0,side]
 	 */
 	public void setValue(int v){
-		if(v > 9 || v < 0){throw new IllegalArgumentException("v must be in the range [0,9]");}
+		if(v > this.side || v < 0){throw new IllegalArgumentException("v must be in the range [0," + this.side + "]");}
 		this.value = v;
 	}
+	
+	/**
+	 * Returns the pencil marks of this as a bitmask. Unlike getPencilMarks() this does not allocate, and it
+	 * returns the stored marks even when the value of this is nonzero.
+	 * @return a mask where bit (n-1) is set if this contains the pencil mark n
+	 */
+	public int getPencilMask(){
+		return this.pencil;
+	}
+	
+	/**
+	 * Sets all pencil marks of this from a bitmask
+	 * @param mask - a mask where bit (n-1) is set for each pencil mark n, only the low side bits may be set
+	 * @throws IllegalArgumentException if mask has bits set outside of the low side bits
+	 */
+	public void setPencilMask(int mask){
+		if((mask & ~allMarks(this.side)) != 0){throw new IllegalArgumentException("mask can only contain the pencil marks [1," + this.side + "]");}
+		this.pencil = mask;
+	}
+	
+	/**
+	 * Returns whether this contains pencil mark m
+	 * @param m - an int in the range [1,side]
+	 * @return true if pencil mark m is set
+	 * @throws IllegalArgumentException if m is not in the specified range
+	 */
+	public boolean hasMark(int m){
+		int side = getSide();
+		if(m > side || m < 1){throw new IllegalArgumentException("m must be in the range [1," + side + "]");}
+		return (getPencilMask() & (1 << (m-1))) != 0;
+	}
+	
+	/**
+	 * Returns the number of pencil marks in this
+	 * @return an int in the range [0,side]
+	 */
+	public int markCount(){
+		return Integer.bitCount(getPencilMask());
+	}
+	
+	/**
+	 * Returns the smallest pencil mark of this that is greater than m, which allows iterating over the
+	 * pencil marks without allocating an array:
+	 * <pre>
+	 * for(int m = c.nextMark(0); m != 0; m = c.nextMark(m)){ ... }
+	 * </pre>
+	 * @param m - an int in the range [0,side]
+	 * @return the next pencil mark in the range [m+1,side], or 0 if there is none
+	 * @throws IllegalArgumentException if m is not in the specified range
+	 */
+	public int nextMark(int m){
+		int side = getSide();
+		if(m > side || m < 0){throw new IllegalArgumentException("m must be in the range [0," + side + "]");}
+		int rest = getPencilMask() >>> m;
+		return rest == 0 ? 0 : m + Integer.numberOfTrailingZeros(rest) + 1;
+	}
+	
 	/**
 	 * Returns an int array of variable size containing the pencil markings. If the value of this is nonzero null is returned.
-	 * the maximum size of the returned array is 9 and the minimum is 0.
-	 * @return null if the value of this is nonzero, otherwise return an int array of variable size with max size of 9 and min of 0
+	 * the maximum size of the returned array is side and the minimum is 0.
+	 * @return null if the value of this is nonzero, otherwise return an int array of variable size with max size of side and min of 0
 	 */
 	public int[] getPencilMarks(){
-		if(this.value != 0){return null;}
-		
-		//count will be used to determine what size array we need to return
-		int count = 0;
-		for(boolean b : this.pencil){
-			if(b){count++;}
-		}
-		
-		//Create an array of size count and fill it
-		int[] marks = new int[count];
-		count = 0;
-		for(int i = 0; i < 9; i++){
-			if(this.pencil[i]){
-				marks[count] = i+1;
-				count++;
-			}
-		}
-		return marks;
+		if(this.getValue() != 0){return null;}
+		return marksOf(getPencilMask());
 	}
 	
 	/**
 	 * Given an array of ints pencilMarks, set the pencil marks of this.
-	 * @param pencilMarks - an array of integers. Must be of size 9 or less, and contain numbers in the range [1,9] with no duplicates
-	 * @throws IllegalArgumentException if pencilMarks contains duplicates, is of a size greater than 9, or contains numbers outside the range [1,9]
+	 * @param pencilMarks - an array of integers. Must be of size side or less, and contain numbers in the range [1,side] with no duplicates
+	 * @throws IllegalArgumentException if pencilMarks contains duplicates, is of a size greater than side, or contains numbers outside the range [1,side]
 	 * @throws NullPointerException if pencilMarks is null
 	 */
 	public void setPencilMarks(int[] pencilMarks){
-		if(pencilMarks == null){throw new NullPointerException("pencilMarks cannot be null");}
-		if(pencilMarks.length > 9){throw new IllegalArgumentException("pencilMarks cannot have a length > 9");}
-		
-		// Initialize pencil to default state
-		this.pencil = new boolean[9];
-		for(int i = 0; i < 9; i++){
-			this.pencil[i] = false;
-		}
-		
-		// Fill pencil according to pencilMarks
-		for(int i : pencilMarks){
-			if(i > 9 || i < 1){throw new IllegalArgumentException("pencilMarks cannot contain numbers outside the range [1,9]");}
-			if(this.pencil[i-1]){throw new IllegalArgumentException("pencilMarks cannot contain duplicate elements");}
-			this.pencil[i-1] = true;
-		}
+		setPencilMask(maskOf(pencilMarks, getSide()));
 	}
 	
 	/**
 	 * Adds pencil mark m to the Cell's pencil marks
-	 * @param m - an int in the range [1,9]
+	 * @param m - an int in the range [1,side]
 	 * @throws IllegalArgumentExceptin if m is not in the specified range
 	 */
 	public void addMark(int m){
-		if(m > 9 || m < 1){throw new IllegalArgumentException("m must be in the range [1,9]");}
-		this.pencil[m-1] = true;
+		int side = getSide();
+		if(m > side || m < 1){throw new IllegalArgumentException("m must be in the range [1," + side + "]");}
+		setPencilMask(getPencilMask() | (1 << (m-1)));
 	}
 	
 	/**
 	 * Removes pencil mark m from the Cell's pencil marks
-	 * @param m - an int in the range [1,9]
+	 * @param m - an int in the range [1,side]
 	 * @throws IllegalArgumentException if m is not in the specified range
 	 */
 	public void removeMark(int m){
-		if(m > 9 || m < 1){throw new IllegalArgumentException("m must be in the range [1,9]");}
-		this.pencil[m-1] = false;
+		int side = getSide();
+		if(m > side || m < 1){throw new IllegalArgumentException("m must be in the range [1," + side + "]");}
+		setPencilMask(getPencilMask() & ~(1 << (m-1)));
 	}
 	
 	/**
@@ -189,24 +242,64 @@ public class Cell {
 		
 		Cell c = (Cell) o;
 		
-		return (this.value == c.getValue()) && this.value != 0;
+		return (this.getValue() == c.getValue()) && this.getValue() != 0;
 	}
 	
 	/**
-	 * The abstraction function for Cell simply returns the string representation of its value if its value is nonzero, and
-	 * if its value is equal to 0 it returns a string containing the whitespace character.
+	 * The abstraction function for Cell returns its value as it is shown on a board: a digit, a letter A-P for the
+	 * values 10-25, or a string containing the whitespace character if its value is equal to 0.
 	 * @return String representation of this
 	 */
 	public String toString(){
-		if(this.value == 0){
-			return " ";
-		}else{
-			return ""+this.value;
+		return String.valueOf(Render.pretty(this.getValue()));
+	}
+	
+	/**
+	 * Converts an array of pencil marks into a bitmask where bit (n-1) is set for each pencil mark n
+	 * @param pencilMarks - an array of integers. Must be of size side or less, and contain numbers in the range [1,side] with no duplicates
+	 * @param side - the largest pencil mark allowed
+	 * @return the bitmask of pencilMarks
+	 * @throws IllegalArgumentException if pencilMarks contains duplicates, is of a size greater than side, or contains numbers outside the range [1,side]
+	 * @throws NullPointerException if pencilMarks is null
+	 */
+	static int maskOf(int[] pencilMarks, int side){
+		if(pencilMarks == null){throw new NullPointerException("pencilMarks cannot be null");}
+		if(pencilMarks.length > side){throw new IllegalArgumentException("pencilMarks cannot have a length > " + side);}
+		int mask = 0;
+		for(int i : pencilMarks){
+			if(i > side || i < 1){throw new IllegalArgumentException("pencilMarks cannot contain numbers outside the range [1," + side + "]");}
+			if((mask & (1 << (i-1))) != 0){throw new IllegalArgumentException("pencilMarks cannot contain duplicate elements");}
+			mask |= 1 << (i-1);
+		}
+		return mask;
+	}
+	
+	/**
+	 * Returns the mask with the pencil marks [1,side] set
+	 */
+	static int allMarks(int side){
+		return (1 << side) - 1;
+	}
+	
+	/**
+	 * Converts a bitmask of pencil marks back into an array in ascending order
+	 * @param mask - a bitmask where bit (n-1) is set for each pencil mark n
+	 * @return an int array with one entry per set bit of mask
+	 */
+	static int[] marksOf(int mask){
+		int[] marks = new int[Integer.bitCount(mask)];
+		int count = 0;
+		while(mask != 0){
+			int bit = mask & -mask;
+			mask ^= bit;
+			marks[count++] = Integer.numberOfTrailingZeros(bit) + 1;
 		}
+		return marks;
 	}
 	
 	/**
-	 * Based on the current state of the puzzle, fill in all valid pencil marks of a given Cell
+	 * Based on the current state of the puzzle, fill in all valid pencil marks of a given Cell.
+	 * To fill every Cell of a Puzzle at once use Puzzle.fillPencilMarks() instead.
 	 * @param cel - Cell object whose pencil marks will be filled, cannot be a PermCell object
 	 * @param blk - Block object that contains cel
 	 * @param col - Column object that contains cel
@@ -215,30 +308,15 @@ public class Cell {
 	 * @throws IllegalArgumentException if cel is a PermCell object
 	 */
 	public static void fillPencilMarks(Cell cel, Block blk, Column col, Row row){
-		if(cel instanceof PermCell){throw new IllegalArgumentException("Cannot fill pencil marks of a PermCell object");}
+		if(cel.isPerm()){throw new IllegalArgumentException("Cannot fill pencil marks of a PermCell object");}
 		
 		// Check for NPE
 		if(blk == null){throw new NullPointerException("blk cannot be null");}
 		if(col == null){throw new NullPointerException("col cannot be null");}
 		if(row == null){throw new NullPointerException("row cannot be null");}
 		
-		// We will use a subtractive process and iterate through all 9 pencil marks
-		for(int i = 1; i <= 9; i++){
-			// Because this process is easier if we work subtractively, we start assuming the pencil mark i is valid
-			cel.addMark(i);
-			
-			// Next we check blk, col, and row to see if they contain a Cell with value i
-			// Checking blk before col or row will cut down on the number of checks, the choice
-			// of checking col before row is arbitrary.
-			// The temp Cell variable is used because the Group.contains() method takes a Cell as a parameter
-			Cell temp = new Cell(i);
-			if(blk.contains(temp)){
-				cel.removeMark(i);
-			}else if(col.contains(cel)){
-				cel.removeMark(i);
-			}else if(row.contains(cel)){
-				cel.removeMark(i);
-			}
-		}
+		// A value is a valid pencil mark only if none of blk, col, or row already contain it
+		int used = blk.getValueMask() | col.getValueMask() | row.getValueMask();
+		cel.setPencilMask(~used & allMarks(cel.getSide()));
 	}
 }
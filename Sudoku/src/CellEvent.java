@@ -0,0 +1,129 @@
+/**
+ * <p>
+ * A CellEvent names the cells touched by one change, or one batch of changes, to a Grid. It is delivered to every
+ * CellListener of the Grid, see CellListener.
+ * </p>
+ * <p>
+ * The cells are kept as three bit-sets like Grid.getFixedBits(): bit (i%64) of word i/64 is set if cell i had its
+ * value, its pencil marks or its given status changed. A cell changed and changed back within a batch is still
+ * named, so a listener should read the new contents from the Grid or a Snapshot rather than assume they differ.
+ * </p>
+ * <p>
+ * A CellEvent is immutable.
+ * </p>
+ */
+public final class CellEvent {
+
+	/**
+	 * The Grid that changed
+	 */
+	private final Grid grid;
+
+	/**
+	 * The cells whose value, pencil marks and given status changed
+	 */
+	private final long[] values;
+	private final long[] marks;
+	private final long[] fixed;
+
+	/**
+	 * The version of the Grid once the change was complete
+	 */
+	private final int version;
+
+	/**
+	 * Creates an event, taking ownership of the bit-sets. Used by Grid.
+	 */
+	CellEvent(Grid grid, long[] values, long[] marks, long[] fixed, int version){
+		this.grid = grid;
+		this.values = values;
+		this.marks = marks;
+		this.fixed = fixed;
+		this.version = version;
+	}
+
+	/**
+	 * @return the Grid that changed
+	 */
+	public Grid getGrid(){
+		return this.grid;
+	}
+
+	/**
+	 * @return the version of the Grid once the change was complete, the same as Snapshot.getVersion() of a
+	 * snapshot taken before any later change
+	 */
+	public int getVersion(){
+		return this.version;
+	}
+
+	/**
+	 * Returns the next changed cell, so that the changed cells can be walked with
+	 * for(int i = e.nextCell(0); i >= 0; i = e.nextCell(i+1))
+	 * @param from - the row-major index to start from, must not be negative
+	 * @return the smallest index i >= from of a cell whose value, pencil marks or given status changed, or -1 if there is none
+	 */
+	public int nextCell(int from){
+		int w = from >> 6;
+		if(w >= this.values.length){return -1;}
+		long bits = (this.values[w] | this.marks[w] | this.fixed[w]) & (-1L << from);
+		while(bits == 0){
+			if(++w == this.values.length){return -1;}
+			bits = this.values[w] | this.marks[w] | this.fixed[w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(bits);
+	}
+
+	/**
+	 * @return the number of cells whose value, pencil marks or given status changed
+	 */
+	public int getCellCount(){
+		int n = 0;
+		for(int w = 0; w < this.values.length; w++){
+			n += Long.bitCount(this.values[w] | this.marks[w] | this.fixed[w]);
+		}
+		return n;
+	}
+
+	/**
+	 * @param i - the row-major index of the cell, must be in the range [0,size)
+	 * @return true if the value of cell i changed
+	 */
+	public boolean isValueChanged(int i){
+		return (this.values[i >> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * @param i - the row-major index of the cell, must be in the range [0,size)
+	 * @return true if the pencil marks of cell i changed
+	 */
+	public boolean isMarksChanged(int i){
+		return (this.marks[i >> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * @param i - the row-major index of the cell, must be in the range [0,size)
+	 * @return true if cell i was fixed or made changeable
+	 */
+	public boolean isFixedChanged(int i){
+		return (this.fixed[i >> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * @return the cells whose value changed as a new bit-set, bit (i%64) of word i/64 set for cell i
+	 */
+	public long[] getValueBits(){
+		return this.values.clone();
+	}
+
+	/**
+	 * @return the cells whose pencil marks changed as a new bit-set, bit (i%64) of word i/64 set for cell i
+	 */
+	public long[] getMarksBits(){
+		return this.marks.clone();
+	}
+
+	public String toString(){
+		return "CellEvent[" + getCellCount() + " cells, version " + this.version + "]";
+	}
+}
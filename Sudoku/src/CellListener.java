@@ -0,0 +1,23 @@
+/**
+ * <p>
+ * A CellListener is told about the changes made to a Grid, see Grid.addCellListener(CellListener) and
+ * Puzzle.addCellListener(CellListener).
+ * </p>
+ * <p>
+ * Each change, such as one call to setValue or fillPencilMarks, or one undo, delivers a single CellEvent
+ * naming every cell whose value, pencil marks or given status it touched. Changes made between
+ * Grid.beginBatch() and Grid.endBatch() are delivered together as one event when the batch ends.
+ * </p>
+ * <p>
+ * Listeners are called on the thread that changed the Grid, after the change is complete, so a snapshot taken
+ * by the listener already includes it.
+ * </p>
+ */
+public interface CellListener {
+
+	/**
+	 * Called after one or more cells of a Grid changed
+	 * @param e - the cells that changed
+	 */
+	void cellsChanged(CellEvent e);
+}
@@ -9,41 +9,40 @@ import java.io.*;
  */
 public class Column extends Group{
 
-	/**
-	 * An array that stores the Cell objects of this class. This array will always be sorted into row-major (ascending) order.
-	 */
-	private Cell[] cells;
-	
 	/**
 	 * The Column class stores a column of Cells in row-major order.
-	 * @param c - An array of Cells, the array must be exactly size 9
+	 * @param c - An array of Cells, the array must be exactly size 9, or 4, 16 or 25 for the other Layouts
 	 * @throws NullPointerException if c is null
-	 * @throws IllegalArgumentException if array is not of size 9
+	 * @throws IllegalArgumentException if array is not of size 4, 9, 16 or 25
 	 */
 	public Column(Cell[] c){
-		if(c.length != 9){throw new IllegalArgumentException("Can only take arrays of size 9");}
-		cells = c.clone();
+		super(c);
+	}
+	
+	/**
+	 * Creates a Column that is a view of column c of g
+	 * @param g - the Grid being viewed
+	 * @param c - the column, an int in the range [0,side)
+	 */
+	Column(Grid g, int c){
+		super(g, g.getLayout().column(c));
 	}
 	
 	/**
 	 * Gets the Cell at row r of this
-	 * @param r - an int in the range [0,9)
+	 * @param r - an int in the range [0,size())
 	 * @return the Cell at row r of this
 	 * @throws IllegalArgumentException if r is not in the specified range
 	 */
 	public Cell getCell(int r){
-		if(r >= 9 || r < 0){throw new IllegalArgumentException("Index out of bounds");}
-		return cells[r];
+		if(r >= size() || r < 0){throw new IllegalArgumentException("Index out of bounds");}
+		return cellAt(r);
 	}
 	
 	/**
 	 * The abstraction function for Column will print each element of cells on a new line surrounded by square braces
 	 */
-	public String toString(){
-		String build = "";
-		for(Cell c : cells){
-			build += "[" + c + "]\n";
-		}
-		return build;
+	protected boolean lineBreakAfter(int k){
+		return true;
 	}
 }
@@ -0,0 +1,509 @@
+import java.util.*;
+import java.io.*;
+import java.util.concurrent.*;
+
+/**
+ * <p>
+ * CommandLine runs the engine without a window, for batch jobs on machines with no display. Sudoku.main hands it
+ * its arguments whenever there are any. The commands are
+ * <ul>
+ * <li>solve: writes the solution of every puzzle</li>
+ * <li>validate: writes every puzzle with whether it has a unique solution, and fails if any does not</li>
+ * <li>grade: writes every puzzle with its score and hardest technique, see Grader</li>
+ * <li>generate: writes new puzzles with a unique solution on all threads, see Generator</li>
+ * <li>convert: copies puzzles from one format to another, including the binary PuzzleBank</li>
+ * </ul>
+ * Puzzles are read from a file in any format accepted by PuzzleReader, from a PuzzleBank file, or from standard
+ * input, and results are written to standard output or to a file given with -o, one line per puzzle. Notes after
+ * a puzzle follow a '#', so that the output can be read back by PuzzleReader.
+ * </p>
+ * <p>
+ * Input is streamed in chunks through BatchSolver and BatchGrader and each result is written as soon as its chunk
+ * is done, so files of any size can be processed. Once a command is done, a summary with the number of puzzles,
+ * the elapsed time and the throughput is printed to standard error, unless -q is given.
+ * </p>
+ * <p>
+ * run returns an exit status: OK, FAILED if the input could not be processed or a puzzle did not validate, and
+ * USAGE if the arguments are wrong.
+ * </p>
+ */
+public final class CommandLine {
+
+	/**
+	 * Exit statuses returned by run
+	 */
+	public static final int OK = 0;
+	public static final int FAILED = 1;
+	public static final int USAGE = 2;
+
+	/**
+	 * Puzzles generated per worker thread before a chunk is written
+	 */
+	private static final int GENERATE_CHUNK = 16;
+
+	/**
+	 * Spreads the seeds of consecutive generated puzzles apart, see generate
+	 */
+	private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+	private static final String USAGE_TEXT =
+			"Usage: Sudoku <command> [options] [file]\n"
+			+ "Commands:\n"
+			+ "  solve     write the solution of every puzzle\n"
+			+ "  validate  check that every puzzle has exactly one solution\n"
+			+ "  grade     write the score and hardest technique of every puzzle\n"
+			+ "  generate  write new puzzles with a unique solution\n"
+			+ "  convert   copy puzzles to another format\n"
+			+ "Puzzles are read from file, a text file or a puzzle bank, or from standard input if file is - or missing.\n"
+			+ "Options:\n"
+			+ "  -o FILE         write to FILE instead of standard output\n"
+			+ "  -t N            use N threads (default: one per processor)\n"
+			+ "  -q              do not print the summary to standard error\n"
+			+ "  -n N            generate: the number of puzzles (default 1)\n"
+			+ "  --seed S        generate: the seed of the random numbers\n"
+			+ "  --size N        generate: 4, 9, 16 or 25 rows (default 9)\n"
+			+ "  --givens N      generate: stop removing givens at N (default: as few as possible,\n"
+			+ "                  about 275 for 25 rows, where each removal check is limited)\n"
+			+ "  --format F      convert: line, grid or bank (default line); grid writes puzzles larger\n"
+			+ "                  than 9x9 on one line, and bank only holds 9x9 puzzles\n";
+
+	/**
+	 * The command and its options
+	 */
+	private String command;
+	private File input;
+	private File output;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private boolean quiet;
+	private long count = 1;
+	private Long seed;
+	private int side = 9;
+	private int givens;
+	private String format = "line";
+
+	/**
+	 * Where the summary goes
+	 */
+	private final PrintStream err;
+
+	/**
+	 * Holds one line of output, reused for every puzzle
+	 */
+	private final char[] line = new char[Layout.MAX_SIDE*Layout.MAX_SIDE + 1];
+
+	/**
+	 * Counts reported in the summary
+	 */
+	private long good;
+	private long bad;
+	private long nanos;
+
+	private CommandLine(PrintStream err){
+		this.err = err;
+	}
+
+	/**
+	 * @return the usage message listing the commands and options
+	 */
+	public static String usage(){
+		return USAGE_TEXT;
+	}
+
+	/**
+	 * Runs one command
+	 * @param args - the command followed by its options and input file
+	 * @param in - the stream read when no input file is given
+	 * @param out - the stream written when no output file is given, flushed but not closed
+	 * @param err - the stream the summary and errors are written to
+	 * @return OK, FAILED or USAGE
+	 * @throws NullPointerException if any argument is null
+	 */
+	public static int run(String[] args, InputStream in, OutputStream out, PrintStream err){
+		if(args == null || in == null || out == null || err == null){throw new NullPointerException("Arguments cannot be null");}
+		CommandLine c = new CommandLine(err);
+		try{
+			c.parse(args);
+		}catch(IllegalArgumentException e){
+			err.println("sudoku: " + e.getMessage());
+			err.print(USAGE_TEXT);
+			return USAGE;
+		}
+		if(c.command.equals("help")){
+			PrintWriter w = new PrintWriter(new OutputStreamWriter(out));
+			w.print(USAGE_TEXT);
+			w.flush();
+			return OK;
+		}
+		try{
+			return c.execute(in, out);
+		}catch(IOException e){
+			err.println("sudoku: " + e.getMessage());
+			return FAILED;
+		}catch(IllegalStateException e){
+			err.println("sudoku: " + e.getMessage());
+			return FAILED;
+		}catch(IllegalArgumentException e){
+			err.println("sudoku: " + e.getMessage());
+			return FAILED;
+		}
+	}
+
+	/**
+	 * Reads the command and options
+	 * @throws IllegalArgumentException if they are not valid
+	 */
+	private void parse(String[] args){
+		if(args.length == 0){throw new IllegalArgumentException("No command given");}
+		this.command = args[0];
+		if(this.command.equals("-h") || this.command.equals("--help")){
+			this.command = "help";
+		}
+		if(!Arrays.asList("solve", "validate", "grade", "generate", "convert", "help").contains(this.command)){
+			throw new IllegalArgumentException("Unknown command " + this.command);
+		}
+		for(int k = 1; k < args.length; k++){
+			String a = args[k];
+			if(a.equals("-q")){
+				this.quiet = true;
+			}else if(a.equals("-o")){
+				this.output = new File(value(args, ++k, a));
+			}else if(a.equals("-t")){
+				this.threads = number(args, ++k, a, 1, 1 << 15);
+			}else if(a.equals("-n")){
+				this.count = number(args, ++k, a, 0, Integer.MAX_VALUE);
+			}else if(a.equals("--seed")){
+				try{
+					this.seed = Long.valueOf(value(args, ++k, a));
+				}catch(NumberFormatException e){
+					throw new IllegalArgumentException("--seed must be a number");
+				}
+			}else if(a.equals("--size")){
+				this.side = number(args, ++k, a, 4, Layout.MAX_SIDE);
+				Layout.forSide(this.side);
+			}else if(a.equals("--givens")){
+				this.givens = number(args, ++k, a, 0, Layout.MAX_SIDE*Layout.MAX_SIDE);
+			}else if(a.equals("--format")){
+				this.format = value(args, ++k, a);
+				if(!Arrays.asList("line", "grid", "bank").contains(this.format)){
+					throw new IllegalArgumentException("--format must be line, grid or bank");
+				}
+			}else if(a.startsWith("-") && !a.equals("-")){
+				throw new IllegalArgumentException("Unknown option " + a);
+			}else if(this.input != null){
+				throw new IllegalArgumentException("Only one input file can be given");
+			}else if(!a.equals("-")){
+				this.input = new File(a);
+			}
+		}
+		if(this.format.equals("bank") && (this.output == null || this.input == null)){
+			throw new IllegalArgumentException("--format bank needs an input file and an output file");
+		}
+	}
+
+	private static String value(String[] args, int k, String option){
+		if(k >= args.length){throw new IllegalArgumentException(option + " needs a value");}
+		return args[k];
+	}
+
+	private static int number(String[] args, int k, String option, int min, int max){
+		try{
+			int n = Integer.parseInt(value(args, k, option));
+			if(n >= min && n <= max){return n;}
+		}catch(NumberFormatException e){
+		}
+		throw new IllegalArgumentException(option + " must be a number in the range [" + min + "," + max + "]");
+	}
+
+	/**
+	 * Runs the command, writing to the output file or to out
+	 */
+	private int execute(InputStream in, OutputStream out) throws IOException{
+		long start = System.nanoTime();
+		long n;
+		if(this.command.equals("convert") && this.format.equals("bank")){
+			n = PuzzleBank.convert(this.input, this.output);
+			summary(n, start, null);
+			return OK;
+		}
+		OutputStream os = this.output == null ? out : new FileOutputStream(this.output);
+		try{
+			PrintWriter w = new PrintWriter(new BufferedWriter(new OutputStreamWriter(os, "US-ASCII"), 1 << 16));
+			if(this.command.equals("generate")){
+				n = generate(w);
+			}else if(this.command.equals("convert")){
+				n = convert(in, os);
+			}else{
+				n = process(in, w);
+			}
+			w.flush();
+			if(w.checkError()){throw new IOException("Could not write " + (this.output == null ? "the output" : this.output.getPath()));}
+		}finally{
+			if(this.output != null){
+				os.close();
+			}
+		}
+		if(this.command.equals("solve")){
+			summary(n, start, this.good + " solved, " + this.bad + " without a unique solution");
+		}else if(this.command.equals("validate")){
+			summary(n, start, this.good + " valid, " + this.bad + " invalid");
+		}else if(this.command.equals("grade")){
+			summary(n, start, this.good + " solved by techniques, " + this.bad + " stuck");
+		}else{
+			summary(n, start, null);
+		}
+		return this.command.equals("validate") && this.bad > 0 ? FAILED : OK;
+	}
+
+	/**
+	 * Solves, validates or grades every puzzle of the input
+	 */
+	private long process(InputStream in, final PrintWriter w) throws IOException{
+		if(this.command.equals("grade")){
+			BatchGrader b = new BatchGrader(new Grader(), this.threads);
+			try{
+				return read(in, b, new Batch.Handler<Grade>(){
+					public void done(long index, int[] values, Grade g, long nanos){
+						graded(w, values, g, nanos);
+					}
+				});
+			}finally{
+				b.shutdown();
+			}
+		}
+		final boolean solve = this.command.equals("solve");
+		BatchSolver b = new BatchSolver(new BitmaskSolver(), this.threads);
+		try{
+			return read(in, b, new Batch.Handler<Solution>(){
+				public void done(long index, int[] values, Solution s, long nanos){
+					solved(w, values, s, nanos, solve);
+				}
+			});
+		}finally{
+			b.shutdown();
+		}
+	}
+
+	private void solved(PrintWriter w, int[] values, Solution s, long nanos, boolean solve){
+		this.nanos += nanos;
+		if(s.isUnique()){
+			this.good++;
+		}else{
+			this.bad++;
+		}
+		String note;
+		if(s.getCount() == Solution.NONE){
+			note = "no solution";
+		}else if(s.getCount() == Solution.MULTIPLE){
+			note = "multiple solutions";
+		}else{
+			note = solve ? null : "valid";
+		}
+		write(w, solve && s.isSolvable() ? s.getGrid() : values, note);
+	}
+
+	private void graded(PrintWriter w, int[] values, Grade g, long nanos){
+		this.nanos += nanos;
+		StringBuilder note = new StringBuilder();
+		if(g.isSolved()){
+			this.good++;
+		}else{
+			this.bad++;
+			note.append("stuck, ");
+		}
+		note.append("score ").append(g.getScore());
+		if(g.getHardest() != null){
+			note.append(", hardest ").append(g.getHardest());
+		}
+		write(w, values, note.toString());
+	}
+
+	/**
+	 * Runs a Batch over the input, a PuzzleBank file or text in any format accepted by PuzzleReader
+	 */
+	private <R> long read(InputStream in, Batch<R> b, Batch.Handler<R> h) throws IOException{
+		if(this.input != null && isBank(this.input)){
+			PuzzleBank pb = new PuzzleBank(this.input);
+			try{
+				return b.run(iterator(pb), h);
+			}finally{
+				pb.close();
+			}
+		}
+		PuzzleReader r = reader(in);
+		try{
+			return b.run(r, h);
+		}finally{
+			if(this.input != null){
+				r.close();
+			}
+		}
+	}
+
+	/**
+	 * Copies every puzzle of the input in the line or grid format
+	 */
+	private long convert(InputStream in, OutputStream os) throws IOException{
+		// The PuzzleWriter is only flushed, the output is closed, if at all, by execute
+		PuzzleWriter pw = new PuzzleWriter(os, this.format.equals("line"));
+		int[] values = new int[81];
+		if(this.input != null && isBank(this.input)){
+			PuzzleBank pb = new PuzzleBank(this.input);
+			try{
+				for(long k = 0; k < pb.size(); k++){
+					pb.read(k, values);
+					pw.write(values);
+				}
+			}finally{
+				pb.close();
+			}
+		}else{
+			PuzzleReader r = reader(in);
+			try{
+				int size;
+				while((size = r.nextSize()) != 0){
+					// Puzzles of other Layouts need an array of their own size
+					if(values.length != size){
+						values = new int[size];
+					}
+					r.read(values);
+					pw.write(values);
+				}
+			}finally{
+				if(this.input != null){
+					r.close();
+				}
+			}
+		}
+		pw.flush();
+		return pw.getCount();
+	}
+
+	/**
+	 * Generates count puzzles on the worker threads, a chunk at a time, writing each chunk in order once it is
+	 * done. Each worker has its own Generator, and puzzle k is drawn from a seed derived from the base seed and k,
+	 * so the same seed gives the same puzzles for any number of threads.
+	 */
+	private long generate(PrintWriter w){
+		final Layout l = Layout.forSide(this.side);
+		if(this.givens > l.size){throw new IllegalArgumentException("--givens must be at most " + l.size);}
+		final long base = this.seed == null ? new Random().nextLong() : this.seed;
+		final int workers = (int) Math.max(1, Math.min(this.threads, this.count));
+		final int chunk = workers*GENERATE_CHUNK;
+		final int[][] puzzles = new int[chunk][];
+		final long[] times = new long[chunk];
+		final Random[] randoms = new Random[workers];
+		final Generator[] generators = new Generator[workers];
+		for(int t = 0; t < workers; t++){
+			randoms[t] = new Random();
+			generators[t] = new Generator(randoms[t], l);
+		}
+		ForkJoinPool pool = new ForkJoinPool(workers);
+		try{
+			for(long first = 0; first < this.count; first += chunk){
+				final long from = first;
+				final int n = (int) Math.min(chunk, this.count - first);
+				final List<RecursiveAction> tasks = new ArrayList<RecursiveAction>(workers);
+				for(int t = 0; t < workers; t++){
+					final int worker = t;
+					tasks.add(new RecursiveAction(){
+						private static final long serialVersionUID = 1L;
+
+						protected void compute(){
+							for(int k = worker; k < n; k += workers){
+								randoms[worker].setSeed(base + (from + k)*SEED_STEP);
+								long start = System.nanoTime();
+								puzzles[k] = generators[worker].generate(CommandLine.this.givens).getValues();
+								times[k] = System.nanoTime() - start;
+							}
+						}
+					});
+				}
+				pool.invoke(new RecursiveAction(){
+					private static final long serialVersionUID = 1L;
+
+					protected void compute(){
+						invokeAll(tasks);
+					}
+				});
+				for(int k = 0; k < n; k++){
+					this.nanos += times[k];
+					write(w, puzzles[k], null);
+				}
+			}
+		}finally{
+			pool.shutdown();
+		}
+		return this.count;
+	}
+
+	/**
+	 * Writes one puzzle on a line, followed by a note if there is one
+	 */
+	private void write(PrintWriter w, int[] values, String note){
+		for(int i = 0; i < values.length; i++){
+			this.line[i] = Render.compact(values[i]);
+		}
+		w.write(this.line, 0, values.length);
+		if(note != null){
+			w.write(" # ");
+			w.write(note);
+		}
+		w.write('\n');
+	}
+
+	private PuzzleReader reader(InputStream in) throws FileNotFoundException{
+		return this.input == null ? new PuzzleReader(in) : new PuzzleReader(this.input);
+	}
+
+	/**
+	 * Returns whether a file starts like a PuzzleBank
+	 */
+	private static boolean isBank(File f) throws IOException{
+		DataInputStream d = new DataInputStream(new FileInputStream(f));
+		try{
+			return d.readInt() == PuzzleBank.MAGIC;
+		}catch(EOFException e){
+			return false;
+		}finally{
+			d.close();
+		}
+	}
+
+	private static Iterator<Puzzle> iterator(final PuzzleBank pb){
+		return new Iterator<Puzzle>(){
+			private long next;
+
+			public boolean hasNext(){
+				return this.next < pb.size();
+			}
+
+			public Puzzle next(){
+				if(!hasNext()){throw new NoSuchElementException("No more puzzles");}
+				return pb.getPuzzle(this.next++);
+			}
+
+			public void remove(){
+				throw new UnsupportedOperationException("Cannot remove a puzzle from a bank");
+			}
+		};
+	}
+
+	/**
+	 * Prints the number of puzzles, the time taken and the throughput to standard error
+	 */
+	private void summary(long n, long start, String detail){
+		if(this.quiet){return;}
+		long elapsed = System.nanoTime() - start;
+		double seconds = elapsed/1e9;
+		StringBuilder sb = new StringBuilder();
+		sb.append(this.command).append(": ").append(n).append(n == 1 ? " puzzle in " : " puzzles in ");
+		sb.append(String.format(Locale.ROOT, "%.3f s, %.0f puzzles/s", seconds, seconds > 0 ? n/seconds : 0.0));
+		if(n > 0 && this.nanos > 0){
+			sb.append(String.format(Locale.ROOT, ", %.1f us of work per puzzle", this.nanos/1e3/n));
+		}
+		if(detail != null){
+			sb.append(", ").append(detail);
+		}
+		this.err.println(sb);
+	}
+}
@@ -0,0 +1,315 @@
+/**
+ * <p>
+ * DancingLinksSolver solves a Puzzle as an exact cover problem using Knuth's Algorithm X with dancing links.
+ * </p>
+ * <p>
+ * The matrix has 324 columns, one for each constraint: every cell holds a value, and every row, column and
+ * block holds each digit once. Each of the 729 matrix rows places one digit in one cell and satisfies exactly
+ * four constraints. The search always branches on the constraint with the fewest remaining choices, which gives
+ * predictable performance on grids built to defeat cell-by-cell backtracking.
+ * </p>
+ * <p>
+ * Grids of the other Layouts are solved the same way with a matrix of 4*side*side columns and side*side*side
+ * rows; the shape is taken from the size of the array.
+ * </p>
+ * <p>
+ * The links are stored in int arrays rather than node objects. The empty matrix of each Layout is built once and
+ * copied for each call, so a DancingLinksSolver holds no state between calls and may be shared between threads.
+ * </p>
+ */
+public class DancingLinksSolver implements Solver {
+
+	/**
+	 * Index of the root node, followed by the column headers 1 to columns, followed by 4 nodes per matrix row
+	 */
+	private static final int ROOT = 0;
+
+	/**
+	 * The empty matrix of the standard Layout, built when the class is loaded
+	 */
+	private static final Matrix STANDARD = new Matrix(Layout.STANDARD);
+
+	/**
+	 * The empty matrices of the other Layouts, indexed by box size and built on first use
+	 */
+	private static final Matrix[] MATRICES = new Matrix[Layout.MAX_BOX + 1];
+
+	/**
+	 * Solves the given Puzzle. The Puzzle itself is not modified.
+	 * @param p - the Puzzle to solve
+	 * @return a Solution holding the solution count and the first solved grid found
+	 * @throws NullPointerException if p is null
+	 */
+	public Solution solve(Puzzle p){
+		if(p == null){throw new NullPointerException("p cannot be null");}
+		return solve(p.getValues());
+	}
+
+	/**
+	 * Solves a grid given as an array of 81 values in row-major order, where 0 marks an empty cell, or
+	 * side*side values for the other Layouts. The array itself is not modified.
+	 * @param grid - an int array of size 81 containing numbers in the range [0,9], or of size side*side containing numbers in the range [0,side]
+	 * @return a Solution holding the solution count, the first solved grid found and the number of search nodes
+	 * @throws NullPointerException if grid is null
+	 * @throws IllegalArgumentException if grid is not of a supported size or contains numbers outside the range [0,side]
+	 */
+	public Solution solve(int[] grid){
+		Search s = new Search(grid, Solution.MULTIPLE);
+		if(s.consistent){
+			s.search();
+		}
+		return new Solution(s.solution, (int) s.count, s.nodes);
+	}
+
+	/**
+	 * Returns how many solutions the given grid has, stopping once two have been found
+	 * @param grid - an int array of size 81 containing numbers in the range [0,9], or of size side*side containing numbers in the range [0,side]
+	 * @return one of Solution.NONE, Solution.UNIQUE or Solution.MULTIPLE
+	 * @throws NullPointerException if grid is null
+	 * @throws IllegalArgumentException if grid is not of a supported size or contains numbers outside the range [0,side]
+	 */
+	public int countSolutions(int[] grid){
+		return solve(grid).getCount();
+	}
+
+	/**
+	 * Counts the solutions of a grid exactly, up to a limit
+	 * @param grid - an int array of size 81 containing numbers in the range [0,9], or of size side*side containing numbers in the range [0,side]
+	 * @param limit - the search stops once this many solutions have been found, must be positive
+	 * @return the number of solutions, at most limit
+	 * @throws NullPointerException if grid is null
+	 * @throws IllegalArgumentException if grid is not of a supported size, contains numbers outside the range [0,side], or limit is not positive
+	 */
+	public long countAll(int[] grid, long limit){
+		if(limit < 1){throw new IllegalArgumentException("limit must be positive");}
+		Search s = new Search(grid, limit);
+		if(s.consistent){
+			s.search();
+		}
+		return s.count;
+	}
+
+	/**
+	 * Returns the empty matrix of a Layout, building it on first use
+	 */
+	private static Matrix matrix(Layout l){
+		if(l == Layout.STANDARD){return STANDARD;}
+		synchronized(MATRICES){
+			Matrix m = MATRICES[l.box];
+			if(m == null){
+				m = new Matrix(l);
+				MATRICES[l.box] = m;
+			}
+			return m;
+		}
+	}
+
+	/**
+	 * The links of the empty matrix of one Layout, copied for each call and never modified
+	 */
+	private static final class Matrix {
+		final int side;
+
+		/**
+		 * The number of constraint columns, and the index of the first node after the column headers
+		 */
+		final int columns;
+		final int firstNode;
+
+		final int[] left;
+		final int[] right;
+		final int[] up;
+		final int[] down;
+		final int[] count;
+
+		/**
+		 * The column header of each node and the matrix row (cell*side + digit-1) of each node
+		 */
+		final int[] column;
+		final int[] row;
+
+		Matrix(Layout l){
+			int side = l.side;
+			int rows = l.size*side;
+			this.side = side;
+			this.columns = 4*l.size;
+			this.firstNode = this.columns + 1;
+			int size = this.firstNode + rows*4;
+			this.left = new int[size];
+			this.right = new int[size];
+			this.up = new int[size];
+			this.down = new int[size];
+			this.count = new int[this.columns + 1];
+			this.column = new int[size];
+			this.row = new int[size];
+			for(int c = 0; c <= this.columns; c++){
+				this.left[c] = c == 0 ? this.columns : c-1;
+				this.right[c] = c == this.columns ? 0 : c+1;
+				this.up[c] = c;
+				this.down[c] = c;
+				this.column[c] = c;
+			}
+			for(int r = 0; r < rows; r++){
+				int i = r/side;
+				int d = r%side;
+				int[] cols = {
+					1 + i,
+					1 + l.size + l.rowOf[i]*side + d,
+					1 + 2*l.size + l.colOf[i]*side + d,
+					1 + 3*l.size + l.blockOf[i]*side + d
+				};
+				int first = this.firstNode + r*4;
+				for(int k = 0; k < 4; k++){
+					int n = first + k;
+					int c = cols[k];
+					this.row[n] = r;
+					this.column[n] = c;
+					this.left[n] = first + (k+3)%4;
+					this.right[n] = first + (k+1)%4;
+					// Append n to the bottom of column c
+					this.up[n] = this.up[c];
+					this.down[n] = c;
+					this.down[this.up[c]] = n;
+					this.up[c] = n;
+					this.count[c]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The mutable state of a single call
+	 */
+	private static final class Search {
+		private final int[] left;
+		private final int[] right;
+		private final int[] up;
+		private final int[] down;
+		private final int[] size;
+
+		/**
+		 * The shared tables of the empty matrix
+		 */
+		private final int[] column;
+		private final int[] row;
+		private final int side;
+
+		/**
+		 * The working grid, filled in as rows are chosen
+		 */
+		private final int[] cells;
+
+		/**
+		 * The search stops once this many solutions have been found
+		 */
+		private final long limit;
+
+		/**
+		 * false if the givens already break a constraint
+		 */
+		private boolean consistent = true;
+
+		private long count;
+		private long nodes;
+		private int[] solution;
+
+		Search(int[] grid, long limit){
+			if(grid == null){throw new NullPointerException("grid cannot be null");}
+			Matrix m = matrix(Layout.forSize(grid.length));
+			this.left = m.left.clone();
+			this.right = m.right.clone();
+			this.up = m.up.clone();
+			this.down = m.down.clone();
+			this.size = m.count.clone();
+			this.column = m.column;
+			this.row = m.row;
+			this.side = m.side;
+			this.cells = grid.clone();
+			this.limit = limit;
+			boolean[] covered = new boolean[m.columns + 1];
+			for(int i = 0; i < this.cells.length; i++){
+				int v = this.cells[i];
+				if(v > m.side || v < 0){throw new IllegalArgumentException("grid cannot contain numbers outside the range [0," + m.side + "]");}
+				if(v == 0){continue;}
+				int first = m.firstNode + (i*m.side + v-1)*4;
+				for(int n = first; n < first + 4; n++){
+					if(covered[this.column[n]]){
+						this.consistent = false;
+					}
+				}
+				if(!this.consistent){continue;}
+				for(int n = first; n < first + 4; n++){
+					covered[this.column[n]] = true;
+					cover(this.column[n]);
+				}
+			}
+		}
+
+		/**
+		 * Removes column c from the header list and every row that satisfies c from the other columns
+		 */
+		private void cover(int c){
+			int[] column = this.column;
+			this.right[this.left[c]] = this.right[c];
+			this.left[this.right[c]] = this.left[c];
+			for(int i = this.down[c]; i != c; i = this.down[i]){
+				for(int j = this.right[i]; j != i; j = this.right[j]){
+					this.down[this.up[j]] = this.down[j];
+					this.up[this.down[j]] = this.up[j];
+					this.size[column[j]]--;
+				}
+			}
+		}
+
+		/**
+		 * Exactly reverses cover(c)
+		 */
+		private void uncover(int c){
+			int[] column = this.column;
+			for(int i = this.up[c]; i != c; i = this.up[i]){
+				for(int j = this.left[i]; j != i; j = this.left[j]){
+					this.size[column[j]]++;
+					this.down[this.up[j]] = j;
+					this.up[this.down[j]] = j;
+				}
+			}
+			this.right[this.left[c]] = c;
+			this.left[this.right[c]] = c;
+		}
+
+		void search(){
+			this.nodes++;
+			if(this.right[ROOT] == ROOT){
+				if(this.count == 0){
+					this.solution = this.cells.clone();
+				}
+				this.count++;
+				return;
+			}
+
+			int c = this.right[ROOT];
+			for(int j = this.right[c]; j != ROOT; j = this.right[j]){
+				if(this.size[j] < this.size[c]){
+					c = j;
+					if(this.size[c] <= 1){break;}
+				}
+			}
+			if(this.size[c] == 0){return;}
+
+			cover(c);
+			for(int r = this.down[c]; r != c && this.count < this.limit; r = this.down[r]){
+				int row = this.row[r];
+				this.cells[row/this.side] = row%this.side + 1;
+				for(int j = this.right[r]; j != r; j = this.right[j]){
+					cover(this.column[j]);
+				}
+				search();
+				for(int j = this.left[r]; j != r; j = this.left[j]){
+					uncover(this.column[j]);
+				}
+				this.cells[row/this.side] = 0;
+			}
+			uncover(c);
+		}
+	}
+}
@@ -0,0 +1,199 @@
+import java.util.*;
+
+/**
+ * <p>
+ * Generator creates new puzzles that have exactly one solution.
+ * </p>
+ * <p>
+ * A puzzle is made in two steps. First a random complete grid is built by filling the blocks on the main
+ * diagonal, which do not constrain each other, with random permutations and solving the rest. Then the
+ * givens are removed one at a time in random order, and a removal is kept only if the puzzle still has a
+ * unique solution. Since the full grid is the only solution before a removal, the puzzle stays unique exactly
+ * when no solution puts a different digit in the emptied cell, so each check is a single search for such a
+ * solution rather than a count of all solutions.
+ * </p>
+ * <p>
+ * A Generator makes standard 9x9 puzzles unless it is given another Layout.
+ * </p>
+ * <p>
+ * Each check may be limited to a budget of search nodes, and a given whose check runs out is kept. Layouts up
+ * to 16x16 have no limit, so their puzzles are minimal. Some checks on a 25x25 grid would search for minutes,
+ * so that Layout has a budget of LARGE_BUDGET nodes by default: a puzzle takes about a second and keeps
+ * around 275 of its 625 cells, and it is unique but may not be minimal.
+ * </p>
+ * <p>
+ * A Generator is not thread-safe because of its Random; use one Generator per thread.
+ * </p>
+ */
+public class Generator {
+
+	/**
+	 * The default budget of the 25x25 Layout, see setBudget. Smaller Layouts have no limit.
+	 */
+	public static final long LARGE_BUDGET = 1000;
+
+	/**
+	 * The source of randomness for grids and removal order
+	 */
+	private final Random random;
+
+	/**
+	 * The shape of the puzzles made
+	 */
+	private final Layout layout;
+
+	/**
+	 * Used to complete grids and to check uniqueness
+	 */
+	private final BitmaskSolver solver = new BitmaskSolver();
+
+	/**
+	 * The most search nodes spent deciding whether one given can be removed
+	 */
+	private long budget;
+
+	/**
+	 * Creates a Generator with a random seed
+	 */
+	public Generator(){
+		this(new Random());
+	}
+
+	/**
+	 * Creates a Generator that always produces the same sequence of puzzles for the same seed
+	 * @param seed - the seed of the random sequence
+	 */
+	public Generator(long seed){
+		this(new Random(seed));
+	}
+
+	/**
+	 * Creates a Generator that draws from a given Random
+	 * @param r - the source of randomness
+	 * @throws NullPointerException if r is null
+	 */
+	public Generator(Random r){
+		this(r, Layout.STANDARD);
+	}
+
+	/**
+	 * Creates a Generator of puzzles of any Layout that draws from a given Random
+	 * @param r - the source of randomness
+	 * @param l - the shape of the puzzles made
+	 * @throws NullPointerException if r or l is null
+	 */
+	public Generator(Random r, Layout l){
+		if(r == null){throw new NullPointerException("r cannot be null");}
+		if(l == null){throw new NullPointerException("l cannot be null");}
+		this.random = r;
+		this.layout = l;
+		this.budget = l.box > 4 ? LARGE_BUDGET : Long.MAX_VALUE;
+	}
+
+	/**
+	 * @return the most search nodes spent deciding whether one given can be removed
+	 */
+	public long getBudget(){
+		return this.budget;
+	}
+
+	/**
+	 * Sets the most search nodes spent deciding whether one given can be removed. A given whose check runs out
+	 * of nodes is kept, so puzzles stay unique but may no longer be minimal.
+	 * @param budget - a positive number of nodes, or Long.MAX_VALUE for no limit
+	 * @throws IllegalArgumentException if budget is not positive
+	 */
+	public void setBudget(long budget){
+		if(budget < 1){throw new IllegalArgumentException("budget must be positive");}
+		this.budget = budget;
+	}
+
+	/**
+	 * @return the shape of the puzzles made
+	 */
+	public Layout getLayout(){
+		return this.layout;
+	}
+
+	/**
+	 * Builds a random complete and correct grid
+	 * @return an int array of size 81 in row-major order containing numbers in the range [1,9], or of size
+	 * side*side containing numbers in the range [1,side] for the other Layouts
+	 */
+	public int[] generateSolution(){
+		Layout l = this.layout;
+		int[] grid = new int[l.size];
+		int[] digits = new int[l.side];
+		for(int k = 0; k < l.side; k++){
+			digits[k] = k+1;
+		}
+		while(true){
+			for(int b = 0; b < l.side; b += l.box+1){
+				shuffle(digits, l.side);
+				int[] cells = l.cells[l.block(b)];
+				for(int k = 0; k < l.side; k++){
+					grid[cells[k]] = digits[k];
+				}
+			}
+			// Three independent blocks on the diagonal can always be completed, but in other Layouts some
+			// choices of the diagonal blocks cannot, so those are drawn again
+			int[] full = this.solver.findAny(grid);
+			if(full != null){return full;}
+		}
+	}
+
+	/**
+	 * Generates a minimal puzzle, one from which no further given can be removed without losing uniqueness.
+	 * With a budget, see setBudget, some givens that could be removed may be kept.
+	 * @return a Puzzle with a unique solution whose givens are PermCells
+	 */
+	public Puzzle generate(){
+		return generate(0);
+	}
+
+	/**
+	 * Generates a puzzle with a unique solution, removing givens until either minGivens remain or no given can be
+	 * removed without losing uniqueness
+	 * @param minGivens - the number of givens at which to stop removing, in the range [0,81], or [0,side*side] for the other Layouts
+	 * @return a Puzzle with a unique solution and at least minGivens givens, whose givens are PermCells
+	 * @throws IllegalArgumentException if minGivens is not in the specified range
+	 */
+	public Puzzle generate(int minGivens){
+		int size = this.layout.size;
+		if(minGivens > size || minGivens < 0){throw new IllegalArgumentException("minGivens must be in the range [0," + size + "]");}
+		int[] grid = generateSolution();
+		int[] order = new int[size];
+		for(int i = 0; i < size; i++){
+			order[i] = i;
+		}
+		shuffle(order, size);
+
+		int givens = size;
+		for(int k = 0; k < size && givens > minGivens; k++){
+			int i = order[k];
+			int v = grid[i];
+			grid[i] = 0;
+			if(this.solver.hasSolutionWithout(grid, i, v, this.budget)){
+				grid[i] = v;
+			}else{
+				givens--;
+			}
+		}
+
+		Grid g = new Grid(grid);
+		g.fixGivens();
+		return new Puzzle(g);
+	}
+
+	/**
+	 * Shuffles the first n elements of a in place
+	 */
+	private void shuffle(int[] a, int n){
+		for(int i = n-1; i > 0; i--){
+			int j = this.random.nextInt(i+1);
+			int t = a[i];
+			a[i] = a[j];
+			a[j] = t;
+		}
+	}
+}
@@ -0,0 +1,110 @@
+import java.util.*;
+
+/**
+ * <p>
+ * A Grade is the result of grading a puzzle with a Grader: whether the techniques were enough to solve it, how
+ * many times each technique was needed, and a difficulty score.
+ * </p>
+ * <p>
+ * The score is the sum of the difficulty of every step taken, so it grows both with the number of steps and
+ * with how hard they are. The hardest technique used is usually the better guide to how a puzzle feels to a
+ * human. A Grade is immutable.
+ * </p>
+ */
+public class Grade {
+
+	/**
+	 * true if the techniques filled in every cell
+	 */
+	private final boolean solved;
+
+	/**
+	 * The sum of the difficulty of every step taken
+	 */
+	private final int score;
+
+	/**
+	 * The hardest technique used, or null if no technique was used
+	 */
+	private final String hardest;
+
+	/**
+	 * The difficulty of the hardest technique used, or 0 if no technique was used
+	 */
+	private final int hardestDifficulty;
+
+	/**
+	 * The number of times each technique was used, in pipeline order
+	 */
+	private final Map<String, Integer> uses;
+
+	/**
+	 * Creates a Grade
+	 * @param solved - true if the techniques filled in every cell
+	 * @param score - the sum of the difficulty of every step taken
+	 * @param hardest - the hardest technique used, or null if none was used
+	 * @param hardestDifficulty - the difficulty of the hardest technique used
+	 * @param uses - the number of times each technique was used, which is copied
+	 */
+	Grade(boolean solved, int score, String hardest, int hardestDifficulty, Map<String, Integer> uses){
+		this.solved = solved;
+		this.score = score;
+		this.hardest = hardest;
+		this.hardestDifficulty = hardestDifficulty;
+		this.uses = Collections.unmodifiableMap(new LinkedHashMap<String, Integer>(uses));
+	}
+
+	/**
+	 * @return true if the techniques were enough to fill in every cell
+	 */
+	public boolean isSolved(){
+		return this.solved;
+	}
+
+	/**
+	 * @return the sum of the difficulty of every step taken
+	 */
+	public int getScore(){
+		return this.score;
+	}
+
+	/**
+	 * @return the name of the hardest technique used, or null if no technique was used
+	 */
+	public String getHardest(){
+		return this.hardest;
+	}
+
+	/**
+	 * @return the difficulty of the hardest technique used, or 0 if no technique was used
+	 */
+	public int getHardestDifficulty(){
+		return this.hardestDifficulty;
+	}
+
+	/**
+	 * @param name - the name of a technique
+	 * @return the number of times the technique was used
+	 */
+	public int getUses(String name){
+		Integer n = this.uses.get(name);
+		return n == null ? 0 : n;
+	}
+
+	/**
+	 * @return an unmodifiable map from the name of each technique used to the number of times it was used
+	 */
+	public Map<String, Integer> getUses(){
+		return this.uses;
+	}
+
+	public String toString(){
+		StringBuilder sb = new StringBuilder();
+		sb.append(this.solved ? "Solved" : "Stuck").append(", score ").append(this.score);
+		if(this.hardest != null){
+			sb.append(", hardest ").append(this.hardest);
+		}
+		sb.append(' ').append(this.uses);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,134 @@
+import java.util.*;
+
+/**
+ * <p>
+ * Grader rates how hard a puzzle is for a human by solving it the way a human would, with a pipeline of
+ * logical Techniques working on pencil marks instead of guessing.
+ * </p>
+ * <p>
+ * Each step runs the techniques in order, from easiest to hardest, and takes the first one that makes
+ * progress; the next step starts again from the easiest. Grading stops when the puzzle is solved or no
+ * technique can make progress, so a puzzle that needs guessing is reported as not solved. Techniques can be
+ * added, removed or reordered by passing a custom pipeline.
+ * </p>
+ * <p>
+ * A Grader works on its own copy of each puzzle and holds no other state, so it may be shared between threads.
+ * See BatchGrader for grading many puzzles in parallel.
+ * </p>
+ */
+public class Grader {
+
+	/**
+	 * The techniques, in the order they are tried
+	 */
+	private final Technique[] techniques;
+
+	/**
+	 * Creates a Grader with the standard pipeline of techniques
+	 */
+	public Grader(){
+		this(standardTechniques());
+	}
+
+	/**
+	 * Creates a Grader with a custom pipeline of techniques
+	 * @param techniques - the techniques, in the order they should be tried
+	 * @throws NullPointerException if techniques or any of its elements is null
+	 * @throws IllegalArgumentException if techniques is empty
+	 */
+	public Grader(List<? extends Technique> techniques){
+		if(techniques == null){throw new NullPointerException("techniques cannot be null");}
+		if(techniques.isEmpty()){throw new IllegalArgumentException("techniques cannot be empty");}
+		this.techniques = techniques.toArray(new Technique[techniques.size()]);
+		for(Technique t : this.techniques){
+			if(t == null){throw new NullPointerException("techniques cannot contain null");}
+		}
+	}
+
+	/**
+	 * @return a new list of the standard techniques, from easiest to hardest
+	 */
+	public static List<Technique> standardTechniques(){
+		List<Technique> list = new ArrayList<Technique>();
+		list.add(new NakedSingle());
+		list.add(new HiddenSingle());
+		list.add(new LockedCandidates());
+		list.add(new NakedPair());
+		list.add(new HiddenPair());
+		list.add(new XWing());
+		return list;
+	}
+
+	/**
+	 * @return an unmodifiable list of the techniques, in the order they are tried
+	 */
+	public List<Technique> getTechniques(){
+		return Collections.unmodifiableList(Arrays.asList(this.techniques));
+	}
+
+	/**
+	 * Grades the given Puzzle, which is not modified
+	 * @param p - the Puzzle to grade
+	 * @return the Grade of the puzzle
+	 * @throws NullPointerException if p is null
+	 */
+	public Grade grade(Puzzle p){
+		if(p == null){throw new NullPointerException("p cannot be null");}
+		return grade(p.getValues());
+	}
+
+	/**
+	 * Grades a grid given as an array of 81 values in row-major order, where 0 marks an empty cell, or side*side
+	 * values for the other Layouts
+	 * @param values - an int array of size 81 containing numbers in the range [0,9], or of size side*side containing numbers in the range [0,side]
+	 * @return the Grade of the puzzle
+	 * @throws NullPointerException if values is null
+	 * @throws IllegalArgumentException if values is not of a supported size or contains numbers outside the range [0,side]
+	 */
+	public Grade grade(int[] values){
+		Grid g = new Grid(values);
+		g.fillPencilMarks();
+		g.setAutoPencil(true);
+
+		int[] uses = new int[this.techniques.length];
+		int score = 0;
+		int hardest = -1;
+		while(!g.isSolved() && g.getConflictCount() == 0 && !stuck(g)){
+			int k = 0;
+			while(k < this.techniques.length && !this.techniques[k].apply(g)){
+				k++;
+			}
+			if(k == this.techniques.length){break;}
+			uses[k]++;
+			score += this.techniques[k].getDifficulty();
+			if(hardest == -1 || this.techniques[k].getDifficulty() > this.techniques[hardest].getDifficulty()){
+				hardest = k;
+			}
+		}
+
+		Map<String, Integer> map = new LinkedHashMap<String, Integer>();
+		for(int k = 0; k < this.techniques.length; k++){
+			if(uses[k] > 0){
+				String name = this.techniques[k].getName();
+				Integer n = map.get(name);
+				map.put(name, n == null ? uses[k] : n + uses[k]);
+			}
+		}
+		return new Grade(g.isSolved(), score,
+				hardest == -1 ? null : this.techniques[hardest].getName(),
+				hardest == -1 ? 0 : this.techniques[hardest].getDifficulty(), map);
+	}
+
+	/**
+	 * Returns true if some empty cell has no pencil marks left, which means the puzzle has no solution
+	 */
+	private static boolean stuck(Grid g){
+		int size = g.getLayout().getSize();
+		for(int i = 0; i < size; i++){
+			if(g.getValue(i) == 0 && g.getMarks(i) == 0){
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,796 @@
+import java.util.*;
+import java.nio.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * <p>
+ * Grid is the primitive storage behind a Puzzle. The cells are stored in row-major order as one
+ * byte array of values and one int array of pencil mark bitmasks, rather than as separate Cell
+ * objects, which keeps a whole board in two contiguous arrays.
+ * </p>
+ * <p>
+ * The shape of the board is given by a Layout, the standard 9x9 one unless another is passed in. For a
+ * cell at index i, values[i] is in the range [0,side] with 0 meaning the cell is empty, and bit (n-1)
+ * of marks[i] is set if the cell contains the pencil mark n. As in Cell, pencil marks are kept when a
+ * value is set.
+ * </p>
+ * <p>
+ * Cell objects handed out by Puzzle are views onto a Grid, see GridCell.
+ * </p>
+ * <p>
+ * Every change of value also updates a few running counters: the number of filled cells, how many times
+ * each digit appears in each row, column and block, and the number of conflicts (extra copies of a digit within
+ * a unit). This makes isSolved() a constant-time check no matter how often it is called.
+ * </p>
+ * <p>
+ * The same unit masks give the candidates of every empty cell, see fillPencilMarks(). When auto pencil
+ * is on, pencil marks are also kept up to date as values are set and cleared.
+ * </p>
+ * <p>
+ * A Grid must only be changed by one thread at a time. Other threads can read it safely through snapshot() once
+ * the Grid has been shared, see share(). From then on every change holds the write half of a read-write lock and
+ * snapshot() copies under the read half, so a Snapshot never holds half of a change. The lock is only held for the
+ * few array writes of one change, never for a whole batch. A Grid that is not shared takes no lock when it
+ * changes, so a Grid used by a single thread, such as the Grader's or one being loaded, pays nothing for it.
+ * </p>
+ * <p>
+ * A Journal can be attached to record every change so it can be undone, see Journal.
+ * </p>
+ * <p>
+ * CellListeners are told which cells each change touched, see CellListener. Changes made between beginBatch()
+ * and endBatch() are delivered as one event, and a Grid with no listeners does no extra work.
+ * </p>
+ */
+public class Grid {
+
+	/**
+	 * Mask with all 9 pencil mark bits set, the pencil marks of a standard 9x9 Grid
+	 */
+	public static final int ALL_MARKS = 0x1FF;
+
+	/**
+	 * The shape of the board
+	 */
+	private final Layout layout;
+
+	/**
+	 * The value of each cell, in the range [0,side]
+	 */
+	private final byte[] values;
+
+	/**
+	 * The pencil marks of each cell as a side-bit mask
+	 */
+	private final int[] marks;
+
+	/**
+	 * unitCounts[u*side + (n-1)] is the number of cells in unit u that have the value n, units numbered as in Layout
+	 */
+	private final byte[] unitCounts;
+
+	/**
+	 * unitMasks[u] has bit (n-1) set if some cell in unit u has the value n
+	 */
+	private final int[] unitMasks;
+
+	/**
+	 * The number of cells with a nonzero value
+	 */
+	private int filled;
+
+	/**
+	 * The number of duplicate values summed over all units. A unit with three cells of value n adds 2.
+	 */
+	private int conflicts;
+
+	/**
+	 * Bit (i%64) of fixed[i/64] is set if cell i holds a given that cannot be changed
+	 */
+	private final long[] fixed;
+
+	/**
+	 * Bit (i%64) of occupied[i/64] is set if cell i has a nonzero value
+	 */
+	private final long[] occupied;
+
+	/**
+	 * If true, setValue updates the pencil marks of the peers of the changed cell
+	 */
+	private boolean autoPencil;
+
+	/**
+	 * Records every change of a value or pencil marks so it can be undone, or null if changes are not recorded
+	 */
+	private Journal journal;
+
+	/**
+	 * The listeners told about every change, in the order they were added. The array is replaced rather than
+	 * changed, so a listener may add or remove listeners while an event is delivered.
+	 */
+	private CellListener[] listeners = NO_LISTENERS;
+
+	private static final CellListener[] NO_LISTENERS = new CellListener[0];
+
+	/**
+	 * The cells whose value, pencil marks and given status changed since the last event, as bit-sets like fixed.
+	 * They are null while there are no listeners, so that nothing is tracked.
+	 */
+	private long[] changedValues;
+	private long[] changedMarks;
+	private long[] changedFixed;
+
+	/**
+	 * The number of beginBatch() calls not yet matched by endBatch()
+	 */
+	private int batch;
+
+	/**
+	 * Held for writing during every change once the Grid is shared, and for reading while snapshot() copies the state
+	 */
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * true once share() has been called, only read and written by the thread that changes the Grid
+	 */
+	private boolean shared;
+
+	/**
+	 * Incremented by every change, guarded by lock
+	 */
+	private int version;
+
+	/**
+	 * The last Snapshot taken, returned again while version has not changed
+	 */
+	private volatile Snapshot lastSnapshot;
+
+	/**
+	 * Creates an empty standard 9x9 Grid with no values and no pencil marks
+	 */
+	public Grid(){
+		this(Layout.STANDARD);
+	}
+
+	/**
+	 * Creates an empty Grid of any shape with no values and no pencil marks
+	 * @param l - the shape of the board
+	 * @throws NullPointerException if l is null
+	 */
+	public Grid(Layout l){
+		if(l == null){throw new NullPointerException("l cannot be null");}
+		this.layout = l;
+		this.values = new byte[l.size];
+		this.marks = new int[l.size];
+		this.unitCounts = new byte[l.count*l.side];
+		this.unitMasks = new int[l.count];
+		this.fixed = new long[(l.size + 63) >> 6];
+		this.occupied = new long[(l.size + 63) >> 6];
+	}
+
+	/**
+	 * Creates a Grid with the given values and no pencil marks. The shape of the board is given by the size of
+	 * values, 81 for the standard puzzle.
+	 * @param values - an int array of size side*side in row-major order containing numbers in the range [0,side],
+	 * where side is one of 4, 9, 16 or 25
+	 * @throws NullPointerException if values is null
+	 * @throws IllegalArgumentException if values is not of a supported size or contains numbers outside the range [0,side]
+	 */
+	public Grid(int[] values){
+		this(Layout.forSize(sizeOf(values)));
+		for(int i = 0; i < values.length; i++){
+			setValue(i, values[i]);
+		}
+	}
+
+	private static int sizeOf(int[] values){
+		if(values == null){throw new NullPointerException("values cannot be null");}
+		return values.length;
+	}
+
+	/**
+	 * Creates a copy of another Grid
+	 * @param g - the Grid to copy
+	 * @throws NullPointerException if g is null
+	 */
+	public Grid(Grid g){
+		if(g == null){throw new NullPointerException("g cannot be null");}
+		this.layout = g.layout;
+		this.values = g.values.clone();
+		this.marks = g.marks.clone();
+		this.unitCounts = g.unitCounts.clone();
+		this.unitMasks = g.unitMasks.clone();
+		this.fixed = g.fixed.clone();
+		this.occupied = g.occupied.clone();
+		this.filled = g.filled;
+		this.conflicts = g.conflicts;
+		this.autoPencil = g.autoPencil;
+	}
+
+	/**
+	 * Creates a Grid with the state of a Snapshot and no Journal
+	 * @param s - the Snapshot to copy
+	 * @throws NullPointerException if s is null
+	 */
+	public Grid(Snapshot s){
+		this(layoutOf(s));
+		for(int i = 0; i < this.layout.size; i++){
+			replaceValue(i, s.getValue(i));
+			this.marks[i] = s.getMarks(i);
+			if(s.isFixed(i)){
+				this.fixed[i >> 6] |= 1L << i;
+			}
+		}
+	}
+
+	private static Layout layoutOf(Snapshot s){
+		if(s == null){throw new NullPointerException("s cannot be null");}
+		return s.getLayout();
+	}
+
+	/**
+	 * @return the shape of the board
+	 */
+	public Layout getLayout(){
+		return this.layout;
+	}
+
+	/**
+	 * @return a mask where bit (n-1) is set for every digit n of the board, ALL_MARKS for a standard Grid
+	 */
+	public int getAllMarks(){
+		return this.layout.all;
+	}
+
+	/**
+	 * Returns the value of the cell at index i
+	 * @param i - the row-major index of the cell, must be in the range [0,size)
+	 * @return an int in the range [0,side]
+	 */
+	public int getValue(int i){
+		return this.values[i];
+	}
+
+	/**
+	 * Sets the value of the cell at index i
+	 * @param i - the row-major index of the cell, must be in the range [0,size)
+	 * @param v - an int in the range [0,side]
+	 * @throws IllegalArgumentException if v is outside the range [0,side]
+	 * @throws UnsupportedOperationException if the cell is fixed
+	 */
+	public void setValue(int i, int v){
+		if(v > this.layout.side || v < 0){throw new IllegalArgumentException("v must be in the range [0," + this.layout.side + "]");}
+		if(isFixed(i)){throw new UnsupportedOperationException("Cannot change value of a fixed cell");}
+		int old = this.values[i];
+		if(old == v){return;}
+		beginWrite();
+		if(this.journal != null){
+			this.journal.record(Journal.VALUE, i, old, v, false);
+		}
+		replaceValue(i, v);
+		if(this.autoPencil){
+			updatePeerMarks(i, old, v);
+		}
+		endWrite();
+	}
+
+	/**
+	 * Fills a new, empty standard Grid with 81 values packed 4 bits each, two to a byte with the first value in
+	 * the high half, as PuzzleBank records and PuzzleCodec encodings store them. The values, unit counters and
+	 * bit-sets are written in one pass, with none of the journal, listener or lock work of setValue, which is
+	 * safe only because no other object has seen the Grid yet.
+	 * @param src - the buffer holding the values, read with absolute gets so its position is not changed
+	 * @param at - the index in src of the first of the 41 bytes
+	 * @param fix - true to make every nonzero value a given, as fixGivens() does
+	 * @return false if some value is larger than 9, in which case the Grid must be discarded
+	 * @throws IllegalStateException if the Grid is not a standard Grid or already has a value
+	 * @throws IndexOutOfBoundsException if src ends before the 41 bytes do
+	 */
+	boolean loadPacked(ByteBuffer src, int at, boolean fix){
+		Layout l = this.layout;
+		if(l != Layout.STANDARD || this.filled != 0){throw new IllegalStateException("Only an empty standard Grid can be loaded");}
+		for(int k = 0; k < 41; k++){
+			int b = src.get(at + k);
+			if(b == 0){continue;}
+			if(!loadValue(2*k, (b >> 4) & 0xF) || (k < 40 && !loadValue(2*k + 1, b & 0xF))){return false;}
+		}
+		if(fix){
+			System.arraycopy(this.occupied, 0, this.fixed, 0, this.fixed.length);
+		}
+		return true;
+	}
+
+	/**
+	 * Puts a value read by loadPacked into an empty cell
+	 * @return false if v is larger than 9
+	 */
+	private boolean loadValue(int i, int v){
+		if(v == 0){return true;}
+		if(v > 9){return false;}
+		Layout l = this.layout;
+		this.values[i] = (byte) v;
+		this.occupied[i >> 6] |= 1L << i;
+		this.filled++;
+		enter(l.row(l.rowOf[i]), v);
+		enter(l.column(l.colOf[i]), v);
+		enter(l.block(l.blockOf[i]), v);
+		return true;
+	}
+
+	/**
+	 * Sets the value of cell i and updates the counters, without checking whether the cell is fixed, updating
+	 * pencil marks or recording the change in the journal. Used by Journal to undo and redo changes.
+	 */
+	void replaceValue(int i, int v){
+		Layout l = this.layout;
+		int old = this.values[i];
+		if(old != 0){
+			this.filled--;
+			leave(l.row(l.rowOf[i]), old);
+			leave(l.column(l.colOf[i]), old);
+			leave(l.block(l.blockOf[i]), old);
+		}
+		if(v != 0){
+			this.filled++;
+			enter(l.row(l.rowOf[i]), v);
+			enter(l.column(l.colOf[i]), v);
+			enter(l.block(l.blockOf[i]), v);
+		}
+		this.values[i] = (byte) v;
+		if(v != 0){
+			this.occupied[i >> 6] |= 1L << i;
+		}else{
+			this.occupied[i >> 6] &= ~(1L << i);
+		}
+		if(this.changedValues != null){
+			this.changedValues[i >> 6] |= 1L << i;
+		}
+	}
+
+	/**
+	 * Sets the pencil marks of cell i without recording the change in the journal. Used by Journal to undo and
+	 * redo changes.
+	 */
+	void replaceMarks(int i, int mask){
+		this.marks[i] = mask;
+		if(this.changedMarks != null){
+			this.changedMarks[i >> 6] |= 1L << i;
+		}
+	}
+
+	/**
+	 * Changes the pencil marks of cell i as part of a larger change, recording it in the journal if there is one
+	 * @param more - true if this continues a change already recorded, false if it starts a new one
+	 * @return false, so that the next change of the same call continues this one if this one was recorded
+	 */
+	private boolean changeMarks(int i, int mask, boolean more){
+		int old = this.marks[i];
+		if(old == mask){return more;}
+		if(this.journal != null){
+			this.journal.record(Journal.MARKS, i, old, mask, more);
+		}
+		replaceMarks(i, mask);
+		return true;
+	}
+
+	/**
+	 * @return the Journal recording changes to this Grid, or null if changes are not recorded
+	 */
+	public Journal getJournal(){
+		return this.journal;
+	}
+
+	/**
+	 * Attaches the Journal that records changes to this Grid, see Journal(Grid, int)
+	 */
+	void setJournal(Journal j){
+		this.journal = j;
+	}
+
+	/**
+	 * Returns whether the cell at index i holds a given that cannot be changed
+	 * @param i - the row-major index of the cell, must be in the range [0,size)
+	 * @return true if the cell is fixed
+	 */
+	public boolean isFixed(int i){
+		return (this.fixed[i >> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * Marks the cell at index i as a fixed given, or makes it changeable again
+	 * @param i - the row-major index of the cell, must be in the range [0,size)
+	 * @param f - true to fix the cell
+	 * @throws IllegalStateException if f is true and the cell is empty
+	 */
+	public void setFixed(int i, boolean f){
+		if(f && this.values[i] == 0){throw new IllegalStateException("Cannot fix an empty cell");}
+		if(f == isFixed(i)){return;}
+		beginWrite();
+		if(f){
+			this.fixed[i >> 6] |= 1L << i;
+		}else{
+			this.fixed[i >> 6] &= ~(1L << i);
+		}
+		if(this.changedFixed != null){
+			this.changedFixed[i >> 6] |= 1L << i;
+		}
+		endWrite();
+	}
+
+	/**
+	 * Fixes every cell that currently has a value and makes every empty cell changeable, so the current
+	 * values become the givens of the puzzle
+	 */
+	public void fixGivens(){
+		beginWrite();
+		if(this.changedFixed != null){
+			for(int w = 0; w < this.fixed.length; w++){
+				this.changedFixed[w] |= this.fixed[w] ^ this.occupied[w];
+			}
+		}
+		System.arraycopy(this.occupied, 0, this.fixed, 0, this.fixed.length);
+		endWrite();
+	}
+
+	/**
+	 * Returns the fixed cells as a bit-set: bit (i%64) of word i/64 is set if cell i is fixed
+	 * @return a new long array of size (size+63)/64, 2 for a standard Grid
+	 */
+	public long[] getFixedBits(){
+		return this.fixed.clone();
+	}
+
+	/**
+	 * Clears the value of every cell that is not fixed, leaving only the givens. Only cells that are both
+	 * filled and not fixed are visited, found by masking the bit-set of filled cells with the fixed cells.
+	 * Pencil marks of the cleared cells are removed, or refilled with their candidates if auto pencil is on.
+	 * The history of the Journal, if there is one, is cleared.
+	 */
+	public void resetToGivens(){
+		Layout l = this.layout;
+		beginWrite();
+		for(int w = 0; w < this.fixed.length; w++){
+			long bits = this.occupied[w] & ~this.fixed[w];
+			while(bits != 0){
+				int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				int old = this.values[i];
+				this.filled--;
+				leave(l.row(l.rowOf[i]), old);
+				leave(l.column(l.colOf[i]), old);
+				leave(l.block(l.blockOf[i]), old);
+				this.values[i] = 0;
+			}
+			if(this.changedValues != null){
+				this.changedValues[w] |= this.occupied[w] & ~this.fixed[w];
+			}
+			this.occupied[w] = this.fixed[w];
+		}
+		for(int i = 0; i < l.size; i++){
+			if(this.values[i] == 0){
+				int mask = this.autoPencil ? candidates(i) : 0;
+				if(this.marks[i] != mask){
+					replaceMarks(i, mask);
+				}
+			}
+		}
+		if(this.journal != null){
+			this.journal.clear();
+		}
+		endWrite();
+	}
+
+	/**
+	 * Lets other threads take snapshots while this Grid is being changed. Until this is called, changes take no
+	 * lock and snapshot() may only be called by the thread that changes the Grid. It must be called by that
+	 * thread, between changes, before the Grid is handed to another thread that calls snapshot(). Sharing
+	 * cannot be undone, and calling this again does nothing.
+	 */
+	public void share(){
+		this.shared = true;
+	}
+
+	/**
+	 * @return true if share() has been called
+	 */
+	public boolean isShared(){
+		return this.shared;
+	}
+
+	/**
+	 * Marks the start of a change, taking the write lock if the Grid is shared so that snapshot() waits for the
+	 * change to be complete
+	 */
+	void beginWrite(){
+		if(this.shared){
+			this.lock.writeLock().lock();
+		}
+		this.version++;
+	}
+
+	/**
+	 * Marks the end of a change, releasing the write lock if the Grid is shared, and tells the listeners about
+	 * the change unless a batch is open
+	 */
+	void endWrite(){
+		if(this.shared){
+			this.lock.writeLock().unlock();
+		}
+		if(this.batch == 0 && this.changedValues != null){
+			fireCellsChanged();
+		}
+	}
+
+	/**
+	 * Starts a batch of changes. Until the matching endBatch(), listeners are not called; the cells changed in the
+	 * meantime are collected and delivered as a single CellEvent when the batch ends. Batches may be nested, the
+	 * event is delivered when the outermost one ends.
+	 */
+	public void beginBatch(){
+		this.batch++;
+	}
+
+	/**
+	 * Ends a batch of changes started by beginBatch(), delivering one CellEvent for every cell changed during it
+	 * if this was the outermost batch
+	 * @throws IllegalStateException if no batch is open
+	 */
+	public void endBatch(){
+		if(this.batch == 0){throw new IllegalStateException("No batch to end");}
+		if(--this.batch == 0 && this.changedValues != null){
+			fireCellsChanged();
+		}
+	}
+
+	/**
+	 * Adds a listener to be told about every later change. The cells changed are only tracked while there is
+	 * at least one listener.
+	 * @param l - the listener to add
+	 * @throws NullPointerException if l is null
+	 */
+	public void addCellListener(CellListener l){
+		if(l == null){throw new NullPointerException("l cannot be null");}
+		CellListener[] a = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+		a[a.length - 1] = l;
+		if(this.changedValues == null){
+			int words = this.fixed.length;
+			this.changedValues = new long[words];
+			this.changedMarks = new long[words];
+			this.changedFixed = new long[words];
+		}
+		this.listeners = a;
+	}
+
+	/**
+	 * Removes a listener added by addCellListener(CellListener). Nothing happens if it was not added.
+	 * @param l - the listener to remove
+	 */
+	public void removeCellListener(CellListener l){
+		CellListener[] a = this.listeners;
+		for(int k = 0; k < a.length; k++){
+			if(a[k] == l){
+				CellListener[] b = new CellListener[a.length - 1];
+				System.arraycopy(a, 0, b, 0, k);
+				System.arraycopy(a, k + 1, b, k, a.length - k - 1);
+				this.listeners = b;
+				if(b.length == 0){
+					this.changedValues = null;
+					this.changedMarks = null;
+					this.changedFixed = null;
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Delivers the cells changed since the last event to every listener, if any cell changed
+	 */
+	private void fireCellsChanged(){
+		long[] v = this.changedValues;
+		long[] m = this.changedMarks;
+		long[] f = this.changedFixed;
+		long any = 0;
+		for(int w = 0; w < v.length; w++){
+			any |= v[w] | m[w] | f[w];
+		}
+		if(any == 0){return;}
+		// The event keeps the bit-sets, so a listener that changes the Grid again starts from new ones
+		this.changedValues = new long[v.length];
+		this.changedMarks = new long[v.length];
+		this.changedFixed = new long[v.length];
+		CellEvent e = new CellEvent(this, v, m, f, this.version);
+		for(CellListener l : this.listeners){
+			l.cellsChanged(e);
+		}
+	}
+
+	/**
+	 * Takes an immutable Snapshot of the values, pencil marks and givens. Once the Grid is shared this may be
+	 * called from any thread, even while another thread is changing the Grid: the state is copied under the read
+	 * lock, so a change in progress is waited for and the copy always holds whole changes. Otherwise it may only
+	 * be called by the thread that changes the Grid. If nothing has changed since the last
+	 * snapshot, the same Snapshot is returned again without copying.
+	 * @return a Snapshot of the current state
+	 */
+	public Snapshot snapshot(){
+		Lock r = this.lock.readLock();
+		r.lock();
+		try{
+			Snapshot last = this.lastSnapshot;
+			if(last != null && last.getVersion() == this.version){return last;}
+			last = new Snapshot(this.layout, this.values.clone(), this.marks.clone(), this.fixed.clone(),
+					this.filled, this.conflicts, this.version);
+			this.lastSnapshot = last;
+			return last;
+		}finally{
+			r.unlock();
+		}
+	}
+
+	/**
+	 * Returns a Cell for the cell at index i: the shared PermCell of its value if it is fixed, otherwise a
+	 * GridCell view
+	 */
+	Cell cellAt(int i){
+		return isFixed(i) ? PermCell.of(this.values[i]) : new GridCell(this, i);
+	}
+
+	/**
+	 * Keeps the pencil marks of the peers of cell i consistent after its value changed from old to v
+	 */
+	private void updatePeerMarks(int i, int old, int v){
+		int[] peers = this.layout.peers[i];
+		if(old != 0){
+			// old may now be possible again in peers that no longer see it anywhere else
+			int bit = 1 << (old-1);
+			for(int j : peers){
+				if(this.values[j] == 0 && (candidates(j) & bit) != 0){
+					changeMarks(j, this.marks[j] | bit, true);
+				}
+			}
+			if(v == 0){
+				changeMarks(i, candidates(i), true);
+			}
+		}
+		if(v != 0){
+			int keep = ~(1 << (v-1));
+			for(int j : peers){
+				changeMarks(j, this.marks[j] & keep, true);
+			}
+		}
+	}
+
+	/**
+	 * Returns the values that could be placed in cell i without repeating a value in its row, column or block
+	 * @param i - the row-major index of the cell, must be in the range [0,size)
+	 * @return a mask where bit (n-1) is set if no peer of cell i has the value n
+	 */
+	public int candidates(int i){
+		Layout l = this.layout;
+		int used = this.unitMasks[l.row(l.rowOf[i])]
+				| this.unitMasks[l.column(l.colOf[i])]
+				| this.unitMasks[l.block(l.blockOf[i])];
+		return ~used & l.all;
+	}
+
+	/**
+	 * Sets the pencil marks of every empty cell to exactly its candidates in one pass over the grid.
+	 * Cells with a value keep their pencil marks.
+	 */
+	public void fillPencilMarks(){
+		beginWrite();
+		boolean more = false;
+		for(int i = 0; i < this.layout.size; i++){
+			if(this.values[i] == 0){
+				more = changeMarks(i, candidates(i), more);
+			}
+		}
+		endWrite();
+	}
+
+	/**
+	 * Turns automatic pencil marks on or off. While on, setting a value removes it from the pencil marks
+	 * of the cell's peers, and clearing a value adds it back to every empty peer where it is possible again.
+	 * Turning it on does not change any marks, call fillPencilMarks() first for a consistent starting point.
+	 * @param on - true to keep pencil marks up to date on every change of value
+	 */
+	public void setAutoPencil(boolean on){
+		this.autoPencil = on;
+	}
+
+	/**
+	 * @return true if pencil marks are updated automatically as values change
+	 */
+	public boolean isAutoPencil(){
+		return this.autoPencil;
+	}
+
+	/**
+	 * Records that a cell of unit u now has the value v
+	 */
+	private void enter(int u, int v){
+		int c = ++this.unitCounts[u*this.layout.side + v-1];
+		if(c == 1){
+			this.unitMasks[u] |= 1 << (v-1);
+		}else{
+			this.conflicts++;
+		}
+	}
+
+	/**
+	 * Records that a cell of unit u no longer has the value v
+	 */
+	private void leave(int u, int v){
+		int c = --this.unitCounts[u*this.layout.side + v-1];
+		if(c == 0){
+			this.unitMasks[u] &= ~(1 << (v-1));
+		}else{
+			this.conflicts--;
+		}
+	}
+
+	/**
+	 * Returns the values present in a unit as a bitmask
+	 * @param u - the unit number as defined in Layout, must be in the range [0,3*side)
+	 * @return a mask where bit (n-1) is set if some cell of unit u has the value n
+	 */
+	public int getUnitMask(int u){
+		return this.unitMasks[u];
+	}
+
+	/**
+	 * @return the number of cells with a nonzero value
+	 */
+	public int getFilledCount(){
+		return this.filled;
+	}
+
+	/**
+	 * @return the number of duplicate values summed over all units, 0 if no unit repeats a value
+	 */
+	public int getConflictCount(){
+		return this.conflicts;
+	}
+
+	/**
+	 * Returns whether every cell is filled and no unit repeats a value, in constant time
+	 * @return true if the grid is a complete and correct solution
+	 */
+	public boolean isSolved(){
+		return this.filled == this.layout.size && this.conflicts == 0;
+	}
+
+	/**
+	 * Returns the pencil marks of the cell at index i as a bitmask
+	 * @param i - the row-major index of the cell, must be in the range [0,size)
+	 * @return a mask where bit (n-1) is set if the cell contains pencil mark n
+	 */
+	public int getMarks(int i){
+		return this.marks[i];
+	}
+
+	/**
+	 * Sets the pencil marks of the cell at index i from a bitmask
+	 * @param i - the row-major index of the cell, must be in the range [0,size)
+	 * @param mask - a mask where bit (n-1) is set if the cell contains pencil mark n
+	 * @throws IllegalArgumentException if mask has bits set outside of getAllMarks()
+	 */
+	public void setMarks(int i, int mask){
+		if((mask & ~this.layout.all) != 0){throw new IllegalArgumentException("mask can only contain the pencil marks [1," + this.layout.side + "]");}
+		beginWrite();
+		changeMarks(i, mask, false);
+		endWrite();
+	}
+
+	/**
+	 * Copies the values of every cell into a new array
+	 * @return an int array of size side*side in row-major order
+	 */
+	public int[] getValues(){
+		int[] v = new int[this.layout.size];
+		for(int i = 0; i < v.length; i++){
+			v[i] = this.values[i];
+		}
+		return v;
+	}
+}
@@ -0,0 +1,52 @@
+/**
+ * <p>
+ * A GridCell is a lightweight view of one cell of a Grid. It holds no value or pencil marks of its own;
+ * every read and write goes straight through to the Grid, so any number of GridCells for the same index
+ * always agree with each other and with the Puzzle that owns the Grid.
+ * </p>
+ * <p>
+ * GridCells are created on demand by Puzzle.getCell and are cheap to throw away.
+ * </p>
+ */
+class GridCell extends Cell {
+
+	/**
+	 * The Grid that stores this Cell
+	 */
+	private final Grid grid;
+
+	/**
+	 * The row-major index of this Cell in grid
+	 */
+	private final int index;
+
+	/**
+	 * Creates a view of the cell at index i of g
+	 * @param g - the backing Grid
+	 * @param i - the row-major index of the cell, must be in the range [0,size)
+	 */
+	GridCell(Grid g, int i){
+		this.grid = g;
+		this.index = i;
+	}
+
+	protected int getSide(){
+		return this.grid.getLayout().side;
+	}
+
+	public int getValue(){
+		return this.grid.getValue(this.index);
+	}
+
+	public void setValue(int v){
+		this.grid.setValue(this.index, v);
+	}
+
+	public int getPencilMask(){
+		return this.grid.getMarks(this.index);
+	}
+
+	public void setPencilMask(int mask){
+		this.grid.setMarks(this.index, mask);
+	}
+}
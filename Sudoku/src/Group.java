@@ -5,9 +5,15 @@ import java.io.*;
 /**
  * <p>
  * The Group class is a general class that will be extended by the Column, Row, and Block classes.
- * </p> 
+ * </p>
+ * <p>
+ * The Group class provides the isComplete() and isCorrect() methods to all of its children.
+ * </p>
  * <p>
- * The Group class provides the isComplete() and isCorrect() methods to all of its children. 
+ * A Group either holds its own copy of an array of Cells, or is a view of the cells of a Grid given by
+ * a table of indices. A Group of the standard puzzle has 9 Cells; Groups of other Layouts have one Cell
+ * per value, 4, 16 or 25. The Groups returned by Puzzle are views: they are created once per Puzzle, always
+ * reflect the current state of the board, and reading or checking them does not allocate.
  * </p>
  * @author Jeffrey Cohen
  *
@@ -15,22 +21,125 @@ import java.io.*;
 public class Group {
 
 	/**
-	 * Holds all cells for this group
+	 * The shape of the puzzle this group belongs to
+	 */
+	private final Layout layout;
+
+	/**
+	 * Holds all cells for this group, or null if this is a view of a Grid
+	 */
+	private final Cell[] cells;
+
+	/**
+	 * The Grid this is a view of, or null if this holds its own cells
+	 */
+	private final Grid grid;
+
+	/**
+	 * The row-major indices into grid of the cells of this group
+	 */
+	private final int[] indices;
+
+	/**
+	 * The unit number of this group as defined in Layout, or -1 if this holds its own cells
 	 */
-	private Cell[] cells;
-	
+	private final int unit;
+
+	/**
+	 * Creates a Group holding a copy of an array of Cells
+	 * @param c - An array of Cells, the array must be exactly size 9, or 4, 16 or 25 for the other Layouts
+	 * @throws NullPointerException if c is null
+	 * @throws IllegalArgumentException if array is not of size 4, 9, 16 or 25
+	 */
+	protected Group(Cell[] c){
+		this.layout = layoutOf(c.length);
+		this.cells = c.clone();
+		this.grid = null;
+		this.indices = null;
+		this.unit = -1;
+	}
+
+	private static Layout layoutOf(int side){
+		if(side == 9){return Layout.STANDARD;}
+		if(side != 4 && side != 16 && side != 25){throw new IllegalArgumentException("Can only take arrays of size 4, 9, 16 or 25");}
+		return Layout.forSide(side);
+	}
+
+	/**
+	 * Creates a Group that is a view of one of the units of a Grid
+	 * @param g - the Grid being viewed
+	 * @param u - the unit number as defined in Layout
+	 */
+	Group(Grid g, int u){
+		this.layout = g.getLayout();
+		this.cells = null;
+		this.grid = g;
+		this.indices = this.layout.cells[u];
+		this.unit = u;
+	}
+
+	/**
+	 * @return the shape of the puzzle this group belongs to
+	 */
+	public Layout getLayout(){
+		return this.layout;
+	}
+
+	/**
+	 * @return the number of Cells in this group, 9 for the standard puzzle
+	 */
+	public int size(){
+		return this.layout.side;
+	}
+
+	/**
+	 * Gets the value of the k-th Cell of this group without creating a Cell
+	 * @param k - an int in the range [0,size())
+	 * @return an int in the range [0,size()]
+	 */
+	protected int valueAt(int k){
+		return this.cells == null ? this.grid.getValue(this.indices[k]) : this.cells[k].getValue();
+	}
+
+	/**
+	 * Gets the k-th Cell of this group
+	 * @param k - an int in the range [0,size())
+	 * @return the Cell, which comes from Grid.cellAt if this is a view
+	 */
+	protected Cell cellAt(int k){
+		return this.cells == null ? this.grid.cellAt(this.indices[k]) : this.cells[k];
+	}
+
+	/**
+	 * Returns the values present in this group as a bitmask
+	 * @return a mask where bit (n-1) is set if some Cell of this group has the value n
+	 */
+	public int getValueMask(){
+		if(this.cells == null){
+			return this.grid.getUnitMask(this.unit);
+		}
+		int mask = 0;
+		for(int k = 0; k < this.layout.side; k++){
+			int v = valueAt(k);
+			if(v != 0){
+				mask |= 1 << (v-1);
+			}
+		}
+		return mask;
+	}
+
 	/**
 	 * isComplete() returns true only if every Cell in cells has a nonzero value
 	 * @return true if and only if the above condition is met, else false
 	 */
 	public boolean isComplete(){
-		for(Cell c : cells){
-			if(c.getValue() == 0)
+		for(int k = 0; k < this.layout.side; k++){
+			if(valueAt(k) == 0)
 				return false;
 		}
 		return true;
 	}
-	
+
 	/**
 	 * <p>
 	 * isCorrect() returns true only if the following conditions are met:
@@ -42,18 +151,10 @@ public class Group {
 	 * @return true if and only if the above conditions are met, else false
 	 */
 	public boolean isCorrect(){
-		if(this.isComplete()){
-			TreeSet<Integer> set = new TreeSet<Integer>();
-			for(Cell c : cells){
-				set.add(c.getValue());
-			}
-			if(set.size() == 9){
-				return true;
-			}
-		}
-		return false;
+		// side Cells can only set all side bits if every value is nonzero and there are no duplicates
+		return getValueMask() == this.layout.all;
 	}
-	
+
 	/**
 	 * Uses the equals() method to check if the given Cell is contained in the Group
 	 * @param c - Cell object
@@ -61,11 +162,63 @@ public class Group {
 	 */
 	public boolean contains(Cell c){
 		if(c == null){throw new NullPointerException("Value of c cannot be null");}
-		for(Cell temp : cells){
-			if(temp.equals(c)){
-				return true;
+		int v = c.getValue();
+		return v != 0 && (getValueMask() & (1 << (v-1))) != 0;
+	}
+
+	/**
+	 * Returns whether the rendering of this group starts a new line after the k-th Cell. A plain Group, like a Row,
+	 * is rendered on one line.
+	 * @param k - an int in the range [0,size())
+	 * @return true to end the line after Cell k
+	 */
+	protected boolean lineBreakAfter(int k){
+		return false;
+	}
+
+	/**
+	 * Appends the same text as toString() to out without building a String
+	 * @param out - where to append the text
+	 * @throws NullPointerException if out is null
+	 * @throws IOException if out cannot be written
+	 */
+	public void render(Appendable out) throws IOException{
+		char[] buf = new char[this.layout.side*4];
+		Render.append(out, buf, format(buf));
+	}
+
+	/**
+	 * Writes the same text as toString() to out in a single write
+	 * @param out - the Writer to write to
+	 * @throws NullPointerException if out is null
+	 * @throws IOException if out cannot be written
+	 */
+	public void writeTo(Writer out) throws IOException{
+		render(out);
+	}
+
+	/**
+	 * Prints each Cell surrounded by square braces, starting new lines as given by lineBreakAfter
+	 */
+	public String toString(){
+		char[] buf = new char[this.layout.side*4];
+		return new String(buf, 0, format(buf));
+	}
+
+	/**
+	 * Formats this group into buf, which must hold at least 4 chars per Cell
+	 * @return the number of chars used
+	 */
+	private int format(char[] buf){
+		int n = 0;
+		for(int k = 0; k < this.layout.side; k++){
+			buf[n++] = '[';
+			buf[n++] = Render.pretty(valueAt(k));
+			buf[n++] = ']';
+			if(lineBreakAfter(k)){
+				buf[n++] = '\n';
 			}
 		}
-		return false;
+		return n;
 	}
 }
@@ -0,0 +1,46 @@
+/**
+ * A hidden pair is two digits that can only go in the same two cells of a unit. Those cells must hold those
+ * digits, so every other pencil mark can be removed from them.
+ */
+public class HiddenPair extends Technique {
+
+	public HiddenPair(){
+		super("Hidden pair", 6);
+	}
+
+	public boolean apply(Grid g){
+		Layout l = g.getLayout();
+		int[] where = new int[l.side];
+		for(int u = 0; u < l.count; u++){
+			int[] unit = l.cells[u];
+			// where[d] has bit k set if digit d+1 is a pencil mark of the k-th cell of the unit
+			for(int d = 0; d < l.side; d++){
+				where[d] = 0;
+			}
+			for(int k = 0; k < l.side; k++){
+				int m = marks(g, unit[k]);
+				while(m != 0){
+					int bit = m & -m;
+					m ^= bit;
+					where[digit(bit)-1] |= 1 << k;
+				}
+			}
+			for(int d1 = 0; d1 < l.side; d1++){
+				if(Integer.bitCount(where[d1]) != 2){continue;}
+				for(int d2 = d1+1; d2 < l.side; d2++){
+					if(where[d2] != where[d1]){continue;}
+					int keep = (1 << d1) | (1 << d2);
+					int cells = where[d1];
+					boolean changed = false;
+					while(cells != 0){
+						int bit = cells & -cells;
+						cells ^= bit;
+						changed |= eliminate(g, unit[Integer.numberOfTrailingZeros(bit)], ~keep & l.all);
+					}
+					if(changed){return true;}
+				}
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,34 @@
+/**
+ * A hidden single is a digit that has only one place left in some row, column or block, which is where it
+ * must go.
+ */
+public class HiddenSingle extends Technique {
+
+	public HiddenSingle(){
+		super("Hidden single", 2);
+	}
+
+	public boolean apply(Grid g){
+		Layout l = g.getLayout();
+		for(int u = 0; u < l.count; u++){
+			int[] unit = l.cells[u];
+			int once = 0, twice = 0;
+			for(int i : unit){
+				int m = marks(g, i);
+				twice |= once & m;
+				once |= m;
+			}
+			int hidden = once & ~twice & ~g.getUnitMask(u);
+			if(hidden != 0){
+				int bit = hidden & -hidden;
+				for(int i : unit){
+					if((marks(g, i) & bit) != 0){
+						g.setValue(i, digit(bit));
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,207 @@
+/**
+ * <p>
+ * A Journal records every change made to a Grid so that changes can be undone and redone, and so that the Grid
+ * can be rolled back to an earlier checkpoint.
+ * </p>
+ * <p>
+ * Each change of one cell is packed into a single long holding the cell, whether the value or the pencil marks
+ * changed, and the old and new contents. The entries are kept in a ring buffer of primitives, so recording a
+ * change allocates nothing. One call to Grid.setValue can change a value and, with auto pencil on, the pencil
+ * marks of many peers; these entries are flagged as one move, and undo() and redo() always work on whole moves.
+ * Once the buffer is full, the oldest moves are forgotten.
+ * </p>
+ * <p>
+ * Undoing writes the old contents straight back into the Grid, bypassing auto pencil and the journal itself, so
+ * the Grid returns exactly to its earlier state. This also makes the Journal a cheap way to backtrack in a
+ * search: take a checkpoint with mark(), try a move, and rollback(long) to the mark instead of copying the Grid.
+ * </p>
+ * <p>
+ * Making a new change after undoing discards the moves that could have been redone. A Journal is not thread-safe.
+ * </p>
+ */
+public class Journal {
+
+	/**
+	 * The default number of entries kept
+	 */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	/**
+	 * Kinds of entry
+	 */
+	static final int VALUE = 0;
+	static final int MARKS = 1;
+
+	/**
+	 * Layout of an entry: bits 0-9 the cell, bit 10 the kind, bit 11 set if the entry continues the move of the
+	 * entry before it, bits 12-36 the old contents and bits 37-61 the new contents. This fits the 625 cells and
+	 * 25 pencil marks of the largest Layout.
+	 */
+	private static final int CELL_MASK = 0x3FF;
+	private static final int KIND_SHIFT = 10;
+	private static final long MORE = 1L << 11;
+	private static final int OLD_SHIFT = 12;
+	private static final int NEW_SHIFT = 37;
+	private static final int CONTENTS_MASK = (1 << Layout.MAX_SIDE) - 1;
+
+	/**
+	 * The Grid whose changes are recorded
+	 */
+	private final Grid grid;
+
+	/**
+	 * The ring buffer of entries, entry number n is at entries[n & mask]
+	 */
+	private final long[] entries;
+	private final int mask;
+
+	/**
+	 * Entry numbers count every entry ever recorded. Entries [base,head) can be undone and [head,top) redone.
+	 */
+	private long base;
+	private long head;
+	private long top;
+
+	/**
+	 * Creates a Journal with the default capacity and attaches it to a Grid, see Journal(Grid, int)
+	 * @param g - the Grid whose changes should be recorded
+	 * @throws NullPointerException if g is null
+	 */
+	public Journal(Grid g){
+		this(g, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a Journal and attaches it to a Grid, replacing any Journal already attached. Changes made
+	 * before this are not recorded.
+	 * @param g - the Grid whose changes should be recorded
+	 * @param capacity - the minimum number of cell changes kept, must be positive. It is rounded up to a power of two.
+	 * @throws NullPointerException if g is null
+	 * @throws IllegalArgumentException if capacity is not positive or greater than 2^30
+	 */
+	public Journal(Grid g, int capacity){
+		if(g == null){throw new NullPointerException("g cannot be null");}
+		if(capacity < 1 || capacity > 1 << 30){throw new IllegalArgumentException("capacity must be in the range [1,2^30]");}
+		int size = Integer.highestOneBit(capacity);
+		if(size < capacity){
+			size <<= 1;
+		}
+		this.grid = g;
+		this.entries = new long[size];
+		this.mask = size - 1;
+		g.setJournal(this);
+	}
+
+	/**
+	 * Records one change of a cell, called by Grid
+	 * @param kind - VALUE or MARKS
+	 * @param more - true if the change is part of the move of the change recorded before it
+	 */
+	void record(int kind, int i, int old, int v, boolean more){
+		this.entries[(int) this.head & this.mask] = i | (long) kind << KIND_SHIFT | (more ? MORE : 0)
+				| (long) old << OLD_SHIFT | (long) v << NEW_SHIFT;
+		this.head++;
+		this.top = this.head;
+		if(this.head - this.base > this.entries.length){
+			// Forget the oldest move, including any of its entries that are still in the buffer
+			this.base = this.head - this.entries.length;
+			while(this.base < this.head && (this.entries[(int) this.base & this.mask] & MORE) != 0){
+				this.base++;
+			}
+		}
+	}
+
+	/**
+	 * @return the Grid whose changes are recorded
+	 */
+	public Grid getGrid(){
+		return this.grid;
+	}
+
+	/**
+	 * @return true if there is a move that can be undone
+	 */
+	public boolean canUndo(){
+		return this.head > this.base;
+	}
+
+	/**
+	 * @return true if there is an undone move that can be redone
+	 */
+	public boolean canRedo(){
+		return this.top > this.head;
+	}
+
+	/**
+	 * Undoes the last move
+	 * @return true if a move was undone, false if there was nothing to undo
+	 */
+	public boolean undo(){
+		if(this.head == this.base){return false;}
+		long e;
+		this.grid.beginWrite();
+		do{
+			e = this.entries[(int) --this.head & this.mask];
+			apply(e, OLD_SHIFT);
+		}while((e & MORE) != 0 && this.head > this.base);
+		this.grid.endWrite();
+		return true;
+	}
+
+	/**
+	 * Redoes the last undone move
+	 * @return true if a move was redone, false if there was nothing to redo
+	 */
+	public boolean redo(){
+		if(this.top == this.head){return false;}
+		this.grid.beginWrite();
+		do{
+			apply(this.entries[(int) this.head++ & this.mask], NEW_SHIFT);
+		}while(this.head < this.top && (this.entries[(int) this.head & this.mask] & MORE) != 0);
+		this.grid.endWrite();
+		return true;
+	}
+
+	/**
+	 * Returns a checkpoint that the Grid can later be rolled back to, as long as the moves since are still kept
+	 * @return the checkpoint
+	 */
+	public long mark(){
+		return this.head;
+	}
+
+	/**
+	 * Undoes every move made since a checkpoint. The undone moves can still be redone.
+	 * @param mark - a checkpoint returned by mark()
+	 * @throws IllegalArgumentException if mark has been forgotten, or is ahead of every move that can be undone
+	 */
+	public void rollback(long mark){
+		if(mark < this.base || mark > this.head){throw new IllegalArgumentException("mark is no longer in the journal");}
+		this.grid.beginWrite();
+		while(this.head > mark){
+			apply(this.entries[(int) --this.head & this.mask], OLD_SHIFT);
+		}
+		this.grid.endWrite();
+	}
+
+	/**
+	 * Forgets every move, so that there is nothing to undo or redo. Checkpoints taken before are no longer valid.
+	 */
+	public void clear(){
+		this.base = this.head;
+		this.top = this.head;
+	}
+
+	/**
+	 * Writes the old or new contents of an entry into the Grid
+	 */
+	private void apply(long e, int shift){
+		int i = (int) e & CELL_MASK;
+		int v = (int) (e >>> shift) & CONTENTS_MASK;
+		if((e >>> KIND_SHIFT & 1) == VALUE){
+			this.grid.replaceValue(i, v);
+		}else{
+			this.grid.replaceMarks(i, v);
+		}
+	}
+}
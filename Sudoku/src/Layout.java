@@ -0,0 +1,226 @@
+/**
+ * <p>
+ * A Layout describes the shape of a puzzle for one box size N: N*N rows, N*N columns and N*N blocks of N by N
+ * cells, with the digits 1 to N*N. The standard puzzle has N = 3; N = 4 and N = 5 give the 16x16 and 25x25
+ * variants and N = 2 the 4x4 one.
+ * </p>
+ * <p>
+ * Like Units for the standard puzzle, a Layout holds precomputed index tables so that walking a unit or the
+ * peers of a cell is a loop over a small int array. Cells are numbered in row-major order, i = row*side + column,
+ * and units are numbered with rows first, then columns, then blocks: unit u is row u for u in [0,side), column
+ * (u-side) for u in [side,2*side) and block (u-2*side) for u in [2*side,3*side).
+ * </p>
+ * <p>
+ * A set of digits always fits in the low side bits of an int, bit (n-1) standing for digit n, which is why the
+ * box size stops at 5. There is one shared Layout per box size, see of(int), and its tables must not be modified.
+ * </p>
+ */
+public final class Layout {
+
+	/**
+	 * The smallest and largest supported box sizes
+	 */
+	public static final int MIN_BOX = 2;
+	public static final int MAX_BOX = 5;
+
+	/**
+	 * The largest digit of any supported Layout
+	 */
+	public static final int MAX_SIDE = MAX_BOX*MAX_BOX;
+
+	/**
+	 * The shared Layout of each box size, LAYOUTS[n] has box size n
+	 */
+	private static final Layout[] LAYOUTS = new Layout[MAX_BOX+1];
+
+	static{
+		for(int n = MIN_BOX; n <= MAX_BOX; n++){
+			LAYOUTS[n] = new Layout(n);
+		}
+	}
+
+	/**
+	 * The standard 9x9 Layout
+	 */
+	public static final Layout STANDARD = LAYOUTS[3];
+
+	/**
+	 * The width and height of a block
+	 */
+	final int box;
+
+	/**
+	 * The number of rows, columns, blocks and digits, box*box
+	 */
+	final int side;
+
+	/**
+	 * The number of cells, side*side
+	 */
+	final int size;
+
+	/**
+	 * The number of units, 3*side
+	 */
+	final int count;
+
+	/**
+	 * Mask with all side digit bits set
+	 */
+	final int all;
+
+	/**
+	 * The cells of every unit, in the same order Row, Column and Block store them
+	 */
+	final int[][] cells;
+
+	/**
+	 * The row, column and block that each cell belongs to
+	 */
+	final int[] rowOf;
+	final int[] colOf;
+	final int[] blockOf;
+
+	/**
+	 * The other cells that share a row, column or block with each cell
+	 */
+	final int[][] peers;
+
+	private Layout(int box){
+		this.box = box;
+		this.side = box*box;
+		this.size = this.side*this.side;
+		this.count = 3*this.side;
+		this.all = (1 << this.side) - 1;
+		this.cells = new int[this.count][this.side];
+		this.rowOf = new int[this.size];
+		this.colOf = new int[this.size];
+		this.blockOf = new int[this.size];
+		this.peers = new int[this.size][3*this.side - 2*box - 1];
+		int side = this.side;
+		for(int i = 0; i < this.size; i++){
+			this.rowOf[i] = i/side;
+			this.colOf[i] = i%side;
+			this.blockOf[i] = (this.rowOf[i]/box)*box + this.colOf[i]/box;
+		}
+		for(int u = 0; u < side; u++){
+			for(int k = 0; k < side; k++){
+				this.cells[u][k] = u*side + k;
+				this.cells[side+u][k] = k*side + u;
+				this.cells[2*side+u][k] = ((u/box)*box + k/box)*side + (u%box)*box + k%box;
+			}
+		}
+		for(int i = 0; i < this.size; i++){
+			int n = 0;
+			for(int j = 0; j < this.size; j++){
+				if(j != i && (this.rowOf[j] == this.rowOf[i] || this.colOf[j] == this.colOf[i]
+						|| this.blockOf[j] == this.blockOf[i])){
+					this.peers[i][n++] = j;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the shared Layout of a box size
+	 * @param box - the width and height of a block, in the range [2,5]
+	 * @return the Layout of a puzzle with box*box digits
+	 * @throws IllegalArgumentException if box is not in the specified range
+	 */
+	public static Layout of(int box){
+		if(box > MAX_BOX || box < MIN_BOX){throw new IllegalArgumentException("box must be in the range [2,5]");}
+		return LAYOUTS[box];
+	}
+
+	/**
+	 * Returns the Layout with a given number of digits
+	 * @param side - the number of rows of the puzzle, one of 4, 9, 16 or 25
+	 * @return the Layout with side rows
+	 * @throws IllegalArgumentException if no Layout has side rows
+	 */
+	public static Layout forSide(int side){
+		for(int n = MIN_BOX; n <= MAX_BOX; n++){
+			if(LAYOUTS[n].side == side){return LAYOUTS[n];}
+		}
+		throw new IllegalArgumentException("side must be one of 4, 9, 16 or 25");
+	}
+
+	/**
+	 * Returns the Layout with a given number of cells, for example the Layout of an array of values
+	 * @param size - the number of cells of the puzzle, one of 16, 81, 256 or 625
+	 * @return the Layout with size cells
+	 * @throws IllegalArgumentException if no Layout has size cells
+	 */
+	public static Layout forSize(int size){
+		for(int n = MIN_BOX; n <= MAX_BOX; n++){
+			if(LAYOUTS[n].size == size){return LAYOUTS[n];}
+		}
+		throw new IllegalArgumentException("size must be one of 16, 81, 256 or 625");
+	}
+
+	/**
+	 * @return the width and height of a block
+	 */
+	public int getBox(){
+		return this.box;
+	}
+
+	/**
+	 * @return the number of rows, columns, blocks and digits
+	 */
+	public int getSide(){
+		return this.side;
+	}
+
+	/**
+	 * @return the number of cells
+	 */
+	public int getSize(){
+		return this.size;
+	}
+
+	/**
+	 * @return the number of units, rows, columns and blocks together
+	 */
+	public int getUnitCount(){
+		return this.count;
+	}
+
+	/**
+	 * @return a mask where bit (n-1) is set for every digit n of this Layout
+	 */
+	public int getAllMarks(){
+		return this.all;
+	}
+
+	/**
+	 * @param r - a row in the range [0,side)
+	 * @return the unit number of row r
+	 */
+	int row(int r){
+		return r;
+	}
+
+	/**
+	 * @param c - a column in the range [0,side)
+	 * @return the unit number of column c
+	 */
+	int column(int c){
+		return this.side + c;
+	}
+
+	/**
+	 * @param b - a block in the range [0,side)
+	 * @return the unit number of block b
+	 */
+	int block(int b){
+		return 2*this.side + b;
+	}
+
+	/**
+	 * @return the dimensions of the puzzle, for example "9x9"
+	 */
+	public String toString(){
+		return this.side + "x" + this.side;
+	}
+}
@@ -0,0 +1,90 @@
+import java.io.*;
+import javax.swing.*;
+
+/**
+ * <p>
+ * LoadWorker reads a Puzzle from a file on a background thread, so that a slow disk or a network-mounted bank never
+ * blocks the Swing event thread. The first puzzle in the file is read with a PuzzleReader, so any of its formats is
+ * accepted, and every nonzero value becomes a given as with Puzzle(File).
+ * </p>
+ * <p>
+ * Progress, as reported by getProgress(), is the share of the file read so far. The worker can be cancelled at any
+ * time with cancel(boolean); it stops at the next read of the file. The Puzzle is returned by get(), or handed back
+ * by overriding done(), which runs on the event thread.
+ * </p>
+ * <p>
+ * Like any SwingWorker, a LoadWorker can only be executed once.
+ * </p>
+ */
+public class LoadWorker extends SwingWorker<Puzzle, Void> {
+
+	/**
+	 * The file to read
+	 */
+	private final File file;
+
+	/**
+	 * Creates a worker that reads the first puzzle of a file once executed
+	 * @param f - the file to read
+	 * @throws NullPointerException if f is null
+	 */
+	public LoadWorker(File f){
+		if(f == null){throw new NullPointerException("f cannot be null");}
+		this.file = f;
+	}
+
+	/**
+	 * @return the file read by this worker
+	 */
+	public File getFile(){
+		return this.file;
+	}
+
+	/**
+	 * Reads the puzzle, called on a background thread
+	 * @return the first puzzle of the file, with every nonzero value fixed as a given
+	 * @throws FileNotFoundException if the file cannot be opened
+	 * @throws InterruptedIOException if the worker was cancelled
+	 * @throws IllegalStateException if the file holds no puzzle or is improperly formatted
+	 */
+	protected Puzzle doInBackground() throws IOException{
+		PuzzleReader r = new PuzzleReader(new ProgressStream(new FileInputStream(this.file), this.file.length()));
+		try{
+			if(!r.hasNext()){throw new IllegalStateException("No puzzle in " + this.file.getName());}
+			Puzzle p = r.next();
+			setProgress(100);
+			return p;
+		}finally{
+			r.close();
+		}
+	}
+
+	/**
+	 * Counts the bytes read to update the progress, and stops reading once the worker is cancelled
+	 */
+	private final class ProgressStream extends FilterInputStream {
+		private final long length;
+		private long read;
+
+		ProgressStream(InputStream in, long length){
+			super(in);
+			this.length = length;
+		}
+
+		public int read() throws IOException{
+			byte[] b = new byte[1];
+			return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException{
+			if(isCancelled()){throw new InterruptedIOException("Loading " + file.getName() + " was cancelled");}
+			int n = super.read(b, off, len);
+			if(n > 0 && this.length > 0){
+				this.read += n;
+				// 100 is only reported once the puzzle has been parsed
+				setProgress((int) Math.min(99, this.read*100/this.length));
+			}
+			return n;
+		}
+	}
+}
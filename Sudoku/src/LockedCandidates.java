@@ -0,0 +1,68 @@
+/**
+ * <p>
+ * Locked candidates are a digit whose places in one unit all lie in a second unit, so the digit must be placed
+ * in the overlap and can be removed from the rest of the second unit. This covers both forms:
+ * <ul>
+ * <li>pointing, where the places in a block all lie in one row or column</li>
+ * <li>claiming, where the places in a row or column all lie in one block</li>
+ * </ul>
+ * </p>
+ */
+public class LockedCandidates extends Technique {
+
+	public LockedCandidates(){
+		super("Locked candidates", 4);
+	}
+
+	public boolean apply(Grid g){
+		Layout l = g.getLayout();
+		for(int u = 0; u < l.count; u++){
+			int[] unit = l.cells[u];
+			int missing = ~g.getUnitMask(u) & l.all;
+			while(missing != 0){
+				int bit = missing & -missing;
+				missing ^= bit;
+				// Find the rows, columns and blocks of every place for the digit within this unit
+				int row = -1, col = -1, blk = -1;
+				boolean oneRow = true, oneCol = true, oneBlk = true;
+				for(int i : unit){
+					if((marks(g, i) & bit) == 0){continue;}
+					if(row == -1){
+						row = l.rowOf[i];
+						col = l.colOf[i];
+						blk = l.blockOf[i];
+					}else{
+						oneRow &= row == l.rowOf[i];
+						oneCol &= col == l.colOf[i];
+						oneBlk &= blk == l.blockOf[i];
+					}
+				}
+				if(row == -1){continue;}
+				if(oneRow && clear(g, l, l.row(row), u, bit)){return true;}
+				if(oneCol && clear(g, l, l.column(col), u, bit)){return true;}
+				if(oneBlk && clear(g, l, l.block(blk), u, bit)){return true;}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the marks in bit from every cell of unit target that is not also in unit source
+	 */
+	private static boolean clear(Grid g, Layout l, int target, int source, int bit){
+		if(target == source){return false;}
+		boolean changed = false;
+		for(int i : l.cells[target]){
+			if(!inUnit(l, i, source)){
+				changed |= eliminate(g, i, bit);
+			}
+		}
+		return changed;
+	}
+
+	private static boolean inUnit(Layout l, int i, int u){
+		if(u < l.side){return l.rowOf[i] == u;}
+		if(u < 2*l.side){return l.colOf[i] == u-l.side;}
+		return l.blockOf[i] == u-2*l.side;
+	}
+}
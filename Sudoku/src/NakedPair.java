@@ -0,0 +1,32 @@
+/**
+ * A naked pair is two cells of a unit with the same two pencil marks and no others. Those two digits must go
+ * in those two cells, so they can be removed from every other cell of the unit.
+ */
+public class NakedPair extends Technique {
+
+	public NakedPair(){
+		super("Naked pair", 5);
+	}
+
+	public boolean apply(Grid g){
+		Layout l = g.getLayout();
+		for(int u = 0; u < l.count; u++){
+			int[] unit = l.cells[u];
+			for(int a = 0; a < unit.length; a++){
+				int m = marks(g, unit[a]);
+				if(Integer.bitCount(m) != 2){continue;}
+				for(int b = a+1; b < unit.length; b++){
+					if(marks(g, unit[b]) != m){continue;}
+					boolean changed = false;
+					for(int k = 0; k < unit.length; k++){
+						if(k != a && k != b){
+							changed |= eliminate(g, unit[k], m);
+						}
+					}
+					if(changed){return true;}
+				}
+			}
+		}
+		return false;
+	}
+}
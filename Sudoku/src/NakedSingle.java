@@ -0,0 +1,21 @@
+/**
+ * A naked single is an empty cell with only one pencil mark left, which must be its value.
+ */
+public class NakedSingle extends Technique {
+
+	public NakedSingle(){
+		super("Naked single", 1);
+	}
+
+	public boolean apply(Grid g){
+		int size = g.getLayout().getSize();
+		for(int i = 0; i < size; i++){
+			int m = marks(g, i);
+			if(m != 0 && (m & (m-1)) == 0){
+				g.setValue(i, digit(m));
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -1,26 +1,53 @@
 import java.util.*;
-import java.util.*;
 
+/**
+ * A PermCell is a Cell whose value is given by the puzzle and can never change. It has no pencil marks.
+ * Because a PermCell is immutable, one shared instance per value is enough, see of(int). The shared PermCells
+ * are used by puzzles of every Layout, so values up to 25 are allowed.
+ */
 public class PermCell extends Cell {
 	
 	/**
-	 * value is an int in the range [0,9]. This value is a constant.
+	 * The shared PermCell of each value, PERM[v-1] has value v
 	 */
-	private final int value;
+	private static final PermCell[] PERM = new PermCell[Layout.MAX_SIDE];
 	
-	/**
-	 * This boolean specifies if the value of this Cell can be changed
-	 */
-	public final boolean isPerm = true;
+	static{
+		for(int v = 1; v <= Layout.MAX_SIDE; v++){
+			PERM[v-1] = new PermCell(v);
+		}
+	}
 	
 	/**
 	 * Creates a PermCell object with value v
-	 * @param v - an integer in the range [1,9]
+	 * @param v - an integer in the range [1,25]
 	 * @throws IllegalArgumentException if v is not in the specified range
 	 */
 	public PermCell(int v){
-		if(v > 9 || v < 1){throw new IllegalArgumentException("v must be in the range [1,9]");}
-		value = v;
+		super(given(v), Layout.of(Layout.MAX_BOX));
+	}
+	
+	private static int given(int v){
+		if(v > Layout.MAX_SIDE || v < 1){throw new IllegalArgumentException("v must be in the range [1,25]");}
+		return v;
+	}
+	
+	/**
+	 * Returns the shared PermCell with value v
+	 * @param v - an integer in the range [1,25]
+	 * @return a PermCell with value v
+	 * @throws IllegalArgumentException if v is not in the specified range
+	 */
+	public static PermCell of(int v){
+		if(v > Layout.MAX_SIDE || v < 1){throw new IllegalArgumentException("v must be in the range [1,25]");}
+		return PERM[v-1];
+	}
+	
+	/**
+	 * @return true, the value of a PermCell can never change
+	 */
+	public boolean isPerm(){
+		return true;
 	}
 	
 	/**
@@ -49,6 +76,24 @@ public class PermCell extends Cell {
 		throw new UnsupportedOperationException("PermCell does not contain pencil marks");
 	}
 
+	/**
+	 * This operation is unsupported in PermCell because it does not require pencil marks
+	 * and therefore does not support them or its operations.
+	 * @throws UnsupportedOperationException unconditionally
+	 */
+	public int getPencilMask(){
+		throw new UnsupportedOperationException("PermCell does not contain pencil marks");
+	}
+
+	/**
+	 * This operation is unsupported in PermCell because it does not require pencil marks
+	 * and therefore does not support them or its operations.
+	 * @throws UnsupportedOperationException unconditionally
+	 */
+	public void setPencilMask(int mask){
+		throw new UnsupportedOperationException("PermCell does not contain pencil marks");
+	}
+
 	/**
 	 * This operation is unsupported in PermCell because it does not require pencil marks
 	 * and therefore does not support them or its operations.
@@ -3,19 +3,29 @@ import java.io.*;
 
 /**
  * <p>
- * The Puzzle object will store a 2D array of Cells and maintain the status of the puzzle by offering various operations
+ * The Puzzle object will store the state of the board in a Grid and maintain the status of the puzzle by offering various operations
  * such as checking if a certain Block, Row, or Column has been completed correctly, and of course if the entire Puzzle
  * has been completed correctly.
  * </p>
+ * <p>
+ * A Puzzle is the standard 9x9 puzzle unless it is built from a Layout or from values of another size, in which
+ * case every index range below is [0,side) instead of [0,9) and values go up to side.
+ * </p>
  * @author Jeffrey Cohen
  *
  */
 public class Puzzle {
 
 	/**
-	 * A 2D array of Cell objects that will be the representation of the state of the puzzle
+	 * The primitive storage that represents the state of the puzzle. Cells handed out by this are views onto it.
+	 */
+	private Grid grid;
+	
+	/**
+	 * The Groups of the puzzle, 27 for the standard puzzle, numbered as in Layout. They are views of grid, so they are created once
+	 * on first use and then reused.
 	 */
-	private Cell[][] puzzle;
+	private Group[] units;
 	
 	/**
 	 * Set this to true to enable debug statements
@@ -23,14 +33,14 @@ public class Puzzle {
 	private final boolean DEBUG = false;
 	
 	/**
-	 * The default constructor will set puzzle to null
+	 * The default constructor will set grid to null
 	 */
 	public Puzzle(){
-		puzzle = null;
+		grid = null;
 	}
 	
 	/**
-	 * Generate a Puzzle from a file
+	 * Generate a Puzzle from a file. Every nonzero digit in the file is a given, returned by getCell as a PermCell.
 	 * @param f - a File object representing the desired .txt file to read from
 	 * @throws NullPointerException if f is null
 	 * @throws IllegalArgumentException if the file referenced by f cannot be found
@@ -38,7 +48,7 @@ public class Puzzle {
 	 */
 	public Puzzle(File f){
 		if(f == null){throw new NullPointerException("File cannot be null");}
-		puzzle = new Cell[9][9];
+		grid = new Grid();
 		try{
 			generatePuzzleFromFile(f);
 		}catch(FileNotFoundException e){
@@ -49,15 +59,182 @@ public class Puzzle {
 	}
 	
 	/**
-	 * Gets the Cell at the specified location of the puzzle
+	 * Generate an empty Puzzle of any Layout
+	 * @param l - the shape of the puzzle
+	 * @throws NullPointerException if l is null
+	 */
+	public Puzzle(Layout l){
+		grid = new Grid(l);
+	}
+	
+	/**
+	 * Generate a Puzzle from an array of values. An array of size 81 gives a standard puzzle, and arrays of size
+	 * 16, 256 or 625 give the puzzles of the other Layouts. As with Puzzle(File), every nonzero value is a given,
+	 * returned by getCell as a PermCell.
+	 * @param values - an int array of size side*side in row-major order containing numbers in the range [0,side], where 0 is an empty Cell
+	 * @throws NullPointerException if values is null
+	 * @throws IllegalArgumentException if values is not of a supported size or contains numbers outside the range [0,side]
+	 */
+	public Puzzle(int[] values){
+		grid = new Grid(values);
+		grid.fixGivens();
+	}
+	
+	/**
+	 * Generate a Puzzle backed by an existing Grid. The Grid is not copied, so changes to either are seen by both.
+	 * @param g - the Grid holding the state of the puzzle
+	 * @throws NullPointerException if g is null
+	 */
+	public Puzzle(Grid g){
+		if(g == null){throw new NullPointerException("g cannot be null");}
+		grid = g;
+	}
+	
+	/**
+	 * Gets the Cell at the specified location of the puzzle. A given is returned as a PermCell, any other Cell is a
+	 * view onto the puzzle, so changes made through it are changes to the puzzle.
 	 * @param x - the row of the desired Cell, must be in the range [0,9)
 	 * @param y - the column of the desired Cell, must be in the range [0,9)
 	 * @return the Cell object at the location (x,y)
 	 * @throws IllegalArgumentException if x or y are not in the specified ranges
 	 */
 	public Cell getCell(int x, int y){
-		if(x >= 9 || x < 0 || y >= 9 || y < 0){throw new IllegalArgumentException("Index out of bounds");}
-		return puzzle[x][y];
+		int side = grid.getLayout().side;
+		if(x >= side || x < 0 || y >= side || y < 0){throw new IllegalArgumentException("Index out of bounds");}
+		return grid.cellAt(x*side+y);
+	}
+	
+	/**
+	 * Returns whether the Cell at the specified location is a given of the puzzle, which cannot be changed
+	 * @param x - the row of the Cell, must be in the range [0,9)
+	 * @param y - the column of the Cell, must be in the range [0,9)
+	 * @return true if the Cell is a given
+	 * @throws IllegalArgumentException if x or y are not in the specified ranges
+	 */
+	public boolean isGiven(int x, int y){
+		int side = grid.getLayout().side;
+		if(x >= side || x < 0 || y >= side || y < 0){throw new IllegalArgumentException("Index out of bounds");}
+		return grid.isFixed(x*side+y);
+	}
+	
+	/**
+	 * Gets the positions of the givens as a bit-set: bit (i%64) of word i/64 is set if the Cell at row-major index
+	 * i is a given
+	 * @return a new long array of size 2, or (size+63)/64 for the other Layouts
+	 */
+	public long[] getGivens(){
+		return grid.getFixedBits();
+	}
+	
+	/**
+	 * Clears every Cell that is not a given, returning the puzzle to its starting state
+	 */
+	public void resetToGivens(){
+		grid.resetToGivens();
+	}
+	
+	/**
+	 * Gets the Journal that records the moves made on the puzzle. The Journal is created on the first call, so
+	 * moves are recorded from then on.
+	 * @return the Journal of the puzzle's Grid
+	 */
+	public Journal getJournal(){
+		Journal j = grid.getJournal();
+		if(j == null){
+			j = new Journal(grid);
+		}
+		return j;
+	}
+	
+	/**
+	 * Undoes the last move made on the puzzle, see getJournal()
+	 * @return true if a move was undone, false if there was nothing to undo
+	 */
+	public boolean undo(){
+		return getJournal().undo();
+	}
+	
+	/**
+	 * Redoes the last move undone on the puzzle, see getJournal()
+	 * @return true if a move was redone, false if there was nothing to redo
+	 */
+	public boolean redo(){
+		return getJournal().redo();
+	}
+	
+	/**
+	 * Adds a listener to be told which Cells change, see CellListener. Each move, undo or call such as
+	 * fillPencilMarks() delivers one CellEvent naming every Cell whose value or pencil marks it changed.
+	 * @param l - the listener to add
+	 * @throws NullPointerException if l is null
+	 */
+	public void addCellListener(CellListener l){
+		grid.addCellListener(l);
+	}
+	
+	/**
+	 * Removes a listener added by addCellListener(CellListener)
+	 * @param l - the listener to remove
+	 */
+	public void removeCellListener(CellListener l){
+		grid.removeCellListener(l);
+	}
+	
+	/**
+	 * Starts a batch of changes, so that listeners receive a single CellEvent for every change made until the
+	 * matching endBatch(), see Grid.beginBatch()
+	 */
+	public void beginBatch(){
+		grid.beginBatch();
+	}
+	
+	/**
+	 * Ends a batch of changes started by beginBatch()
+	 * @throws IllegalStateException if no batch is open
+	 */
+	public void endBatch(){
+		grid.endBatch();
+	}
+	
+	/**
+	 * Lets other threads take snapshots while this thread keeps changing the puzzle, see Grid.share()
+	 */
+	public void share(){
+		grid.share();
+	}
+	
+	/**
+	 * Takes an immutable Snapshot of the puzzle that other threads can read while this one keeps changing the
+	 * puzzle. Snapshots are cheap, a packed copy of the Grid, and the same Snapshot is returned while the puzzle
+	 * does not change. Only the thread that changes the puzzle may call this until the puzzle is shared, see share().
+	 * @return a Snapshot of the current state of the puzzle
+	 */
+	public Snapshot snapshot(){
+		return grid.snapshot();
+	}
+	
+	/**
+	 * Gets the Grid that stores the state of the puzzle
+	 * @return the backing Grid, changes to it are changes to the puzzle
+	 */
+	public Grid getGrid(){
+		return grid;
+	}
+	
+	/**
+	 * Gets the shape of the puzzle
+	 * @return the Layout of the backing Grid, Layout.STANDARD for a 9x9 puzzle
+	 */
+	public Layout getLayout(){
+		return grid.getLayout();
+	}
+	
+	/**
+	 * Copies the values of every Cell into a new array
+	 * @return an int array of size 81 in row-major order, or side*side for the other Layouts, where 0 is an empty Cell
+	 */
+	public int[] getValues(){
+		return grid.getValues();
 	}
 	
 	/**
@@ -67,12 +244,9 @@ public class Puzzle {
 	 * @throws IllegalArgumentException if c is not in the specified range
 	 */
 	public Column getColumn(int c){
-		if(c >= 9 || c < 0){throw new IllegalArgumentException("Index out of bounds");}
-		Cell[] col = new Cell[9];
-		for(int i = 0; i < 9; i++){
-			col[i] = puzzle[i][c];
-		}
-		return new Column(col);
+		Layout l = grid.getLayout();
+		if(c >= l.side || c < 0){throw new IllegalArgumentException("Index out of bounds");}
+		return (Column) getUnit(l.column(c));
 	}
 
 	/**
@@ -82,12 +256,9 @@ public class Puzzle {
 	 * @throws IllegalArgumentException if r is not in the specified range
 	 */
 	public Row getRow(int r){
-		if(r >= 9 || r < 0){throw new IllegalArgumentException("Index out of bounds");}
-		Cell[] row = new Cell[9];
-		for(int i = 0; i < 9; i++){
-			row[i] = puzzle[r][i];
-		}
-		return new Row(row);
+		Layout l = grid.getLayout();
+		if(r >= l.side || r < 0){throw new IllegalArgumentException("Index out of bounds");}
+		return (Row) getUnit(l.row(r));
 	}
 	
 	/**
@@ -97,36 +268,61 @@ public class Puzzle {
 	 * @throws IllegalArgumentException if b is not in the specified range
 	 */
 	public Block getBlock(int b){
-		if(b >= 9 || b < 0){throw new IllegalArgumentException("Index out of bounds");}
-		Cell[] blk = new Cell[9];
-		int rn = (b/3)*3;
-		int cn = (b%3)*3;
-		for(int i = 0; i < 9; i++){
-				blk[i] = puzzle[rn+(i/3)][cn+(i%3)];
+		Layout l = grid.getLayout();
+		if(b >= l.side || b < 0){throw new IllegalArgumentException("Index out of bounds");}
+		return (Block) getUnit(l.block(b));
+	}
+	
+	/**
+	 * Gets one of the 27 Groups of the puzzle. Groups 0-8 are the rows, 9-17 the columns and 18-26 the blocks,
+	 * and likewise for the 3*side Groups of the other Layouts. The returned Group is a view of the puzzle and the
+	 * same object is returned on every call.
+	 * @param u - the index of the Group, must be in the range [0,27)
+	 * @return the Row, Column or Block with index u
+	 * @throws IllegalArgumentException if u is not in the specified range
+	 */
+	public Group getUnit(int u){
+		Layout l = grid.getLayout();
+		if(u >= l.count || u < 0){throw new IllegalArgumentException("Index out of bounds");}
+		if(units == null){
+			Group[] g = new Group[l.count];
+			for(int i = 0; i < l.side; i++){
+				g[l.row(i)] = new Row(grid, i);
+				g[l.column(i)] = new Column(grid, i);
+				g[l.block(i)] = new Block(grid, i);
+			}
+			units = g;
 		}
-		return new Block(blk);
+		return units[u];
 	}
 	
 	/**
-	 * Returns whether or not the puzzle is both complete and correct
+	 * Returns whether or not the puzzle is both complete and correct. The Grid keeps running counts of filled
+	 * Cells and conflicting values as Cells change, so this takes constant time.
 	 * @return true if puzzle is complete and all rows, columns, and blocks are correct, false otherwise
 	 */
 	public boolean checkWin(){
-		List<Group> grps = new ArrayList<Group>();
-		for(int i = 0; i < 9; i++){
-			grps.add(this.getColumn(i));
-			grps.add(this.getRow(i));
-			grps.add(this.getBlock(i));
-		}
-		for(Group g : grps){
-			if(!g.isComplete()){
-				return false;
-			}
-			if(!g.isCorrect()){
-				return false;
-			}
+		return grid.isSolved();
+	}
+	
+	/**
+	 * Fills in all valid pencil marks of every empty Cell in one pass, from the values already present in each
+	 * row, column and block
+	 */
+	public void fillPencilMarks(){
+		grid.fillPencilMarks();
+	}
+	
+	/**
+	 * Turns automatic pencil marks on or off. While on, the pencil marks of every empty Cell are kept up to date
+	 * as values are set and cleared. Turning it on fills in all pencil marks first.
+	 * @param on - true to keep pencil marks up to date
+	 */
+	public void setAutoPencil(boolean on){
+		if(on && !grid.isAutoPencil()){
+			grid.fillPencilMarks();
 		}
-		return true;
+		grid.setAutoPencil(on);
 	}
 	
 	/**
@@ -153,13 +349,14 @@ public class Puzzle {
 				// this works because each number is in the range [0,9]
 				line = line.replaceAll(regex, "");
 				debug("Line after regex: " + line);
+				if(count >= 9 || line.length() > 9){throw new IllegalStateException("Too much data in file");}
 				for(int i = 0; i < line.length(); i++){
 					curr = String.valueOf(line.charAt(i));
 					debug("Current index: " + i + "\nRetrieved char: " + curr);
 					temp = Integer.parseInt(curr);
 					debug("Converted char to int: " + temp);
-					puzzle[count][i] = new Cell(temp);
-					debug("Added cell to puzzle: " + puzzle[count][i]);
+					grid.setValue(count*9+i, temp);
+					debug("Added cell to puzzle: " + temp);
 				}
 				count++;
 			}
@@ -174,6 +371,7 @@ public class Puzzle {
 		scan.close();
 		debug("Closed scanner");
 		if(count != 9){debug(count); throw new IllegalStateException("Insufficient data in file to build complete puzzle");}
+		grid.fixGivens();
 		debug("All done!\n### END PUZZLE GENERATION ###");
 	}
 	
@@ -183,25 +381,92 @@ public class Puzzle {
 	 * @return String representation of Puzzle
 	 */
 	public String toString(){
-		String board = "";
-		String hr = " #-----------#-----------#-----------#\n";
-		String bighr = " #####################################\n";
-		for(int i = 0; i < 9; i++){
-			if(i%3 == 0)
-				board += bighr;
-			else
-				board += hr;
-			for(int j = 0; j < 9; j++){
-				if(j%3 == 0)
-					board += " # ";
-				else
-					board += " | ";
-				board += puzzle[i][j];
+		char[] buf = new char[prettySize()];
+		return new String(buf, 0, formatPretty(buf));
+	}
+	
+	/**
+	 * Appends the same formatted board as toString() to out without building a String
+	 * @param out - where to append the board
+	 * @throws NullPointerException if out is null
+	 * @throws IOException if out cannot be written
+	 */
+	public void render(Appendable out) throws IOException{
+		char[] buf = new char[prettySize()];
+		Render.append(out, buf, formatPretty(buf));
+	}
+	
+	/**
+	 * Appends the board as a single line of 81 digits in row-major order, with 0 for an empty Cell and no line
+	 * break. This is one of the formats read by PuzzleReader. The other Layouts are written the same way with
+	 * side*side characters, the values 10-25 as the letters A-P.
+	 * @param out - where to append the board
+	 * @throws NullPointerException if out is null
+	 * @throws IOException if out cannot be written
+	 */
+	public void renderCompact(Appendable out) throws IOException{
+		int size = grid.getLayout().size;
+		char[] buf = new char[size];
+		for(int i = 0; i < size; i++){
+			buf[i] = Render.compact(grid.getValue(i));
+		}
+		Render.append(out, buf, size);
+	}
+	
+	/**
+	 * Writes the same formatted board as toString() to out in a single write
+	 * @param out - the Writer to write to
+	 * @throws NullPointerException if out is null
+	 * @throws IOException if out cannot be written
+	 */
+	public void writeTo(Writer out) throws IOException{
+		render(out);
+	}
+	
+	/**
+	 * The length of the formatted board: 2*side+1 lines of 4*side+3 chars, 19 lines of 39 chars for a standard puzzle
+	 */
+	private int prettySize(){
+		int side = grid.getLayout().side;
+		return (2*side + 1)*(4*side + 3);
+	}
+	
+	/**
+	 * Formats the board into buf, which must hold at least prettySize() chars
+	 * @return the number of chars used
+	 */
+	private int formatPretty(char[] buf){
+		Layout l = grid.getLayout();
+		int n = 0;
+		for(int i = 0; i < l.side; i++){
+			n = formatRule(buf, n, i%l.box == 0);
+			for(int j = 0; j < l.side; j++){
+				buf[n++] = ' ';
+				buf[n++] = j%l.box == 0 ? '#' : '|';
+				buf[n++] = ' ';
+				buf[n++] = Render.pretty(grid.getValue(i*l.side+j));
 			}
-			board += " #\n";
+			buf[n++] = ' ';
+			buf[n++] = '#';
+			buf[n++] = '\n';
+		}
+		return formatRule(buf, n, true);
+	}
+	
+	/**
+	 * Formats the line above a row into buf at n, all '#' if the row starts a block and dashes between the
+	 * block borders otherwise
+	 * @return the number of chars used after the line
+	 */
+	private int formatRule(char[] buf, int n, boolean big){
+		int width = 4*grid.getLayout().side + 1;
+		int box = 4*grid.getLayout().box;
+		buf[n++] = ' ';
+		for(int k = 0; k < width; k++){
+			buf[n++] = big || k%box == 0 ? '#' : '-';
 		}
-		board += bighr;
-		return board;
+		buf[n++] = '\n';
+		return n;
 	}
 	
 	private void debug(Object dbg){
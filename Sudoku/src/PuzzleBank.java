@@ -0,0 +1,237 @@
+import java.util.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+/**
+ * <p>
+ * A PuzzleBank is a read-only file of fixed size puzzle records that is memory-mapped, so that any puzzle can
+ * be fetched by its index without reading the rest of the file. Opening a bank only reads its header; the
+ * operating system pages in records as they are used.
+ * </p>
+ * <p>
+ * The file starts with a 16 byte header:
+ * <ul>
+ * <li>the magic number 0x53444B42 ("SDKB")</li>
+ * <li>the format version as a short, currently 1</li>
+ * <li>the record size as a short, currently 41</li>
+ * <li>the number of records as a long</li>
+ * </ul>
+ * followed by the records. A record stores the 81 values in row-major order, 4 bits per value, with the first
+ * value of each pair in the high half of the byte. The unused last half byte is 0, so a record is the same as a
+ * PuzzleCodec encoding with no optional sections. All numbers are big-endian.
+ * </p>
+ * <p>
+ * Use convert(File, File) to build a bank from a text file readable by PuzzleReader. A PuzzleBank may be read
+ * by several threads at once.
+ * </p>
+ */
+public class PuzzleBank implements Closeable {
+
+	/**
+	 * The magic number at the start of every bank file
+	 */
+	public static final int MAGIC = 0x53444B42;
+
+	/**
+	 * The version of the format written by convert
+	 */
+	public static final short VERSION = 1;
+
+	/**
+	 * The size in bytes of the header
+	 */
+	public static final int HEADER_SIZE = 16;
+
+	/**
+	 * The size in bytes of one record
+	 */
+	public static final int RECORD_SIZE = 41;
+
+	/**
+	 * The number of records in each mapped segment. A single mapping is limited to 2GB, so larger banks are
+	 * mapped as several segments.
+	 */
+	private static final int SEGMENT_RECORDS = 1 << 24;
+
+	/**
+	 * The open file, kept so that it can be closed
+	 */
+	private final RandomAccessFile file;
+
+	/**
+	 * The mapped segments, each holding SEGMENT_RECORDS records except possibly the last
+	 */
+	private final ByteBuffer[] segments;
+
+	/**
+	 * The number of records in the bank
+	 */
+	private final long size;
+
+	/**
+	 * Opens a bank file and maps it into memory
+	 * @param f - the bank file
+	 * @throws NullPointerException if f is null
+	 * @throws FileNotFoundException if the file referenced by f cannot be found
+	 * @throws IOException if the file cannot be read or mapped
+	 * @throws IllegalStateException if the file is not a bank or is truncated
+	 */
+	public PuzzleBank(File f) throws IOException{
+		if(f == null){throw new NullPointerException("File cannot be null");}
+		this.file = new RandomAccessFile(f, "r");
+		try{
+			FileChannel ch = this.file.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while(header.hasRemaining() && ch.read(header, header.position()) >= 0){}
+			if(header.hasRemaining()){throw new IllegalStateException("File is too short to be a puzzle bank");}
+			header.flip();
+			if(header.getInt() != MAGIC){throw new IllegalStateException("File is not a puzzle bank");}
+			if(header.getShort() != VERSION){throw new IllegalStateException("Unsupported puzzle bank version");}
+			if(header.getShort() != RECORD_SIZE){throw new IllegalStateException("Unsupported puzzle bank record size");}
+			this.size = header.getLong();
+			if(this.size < 0 || ch.size() < HEADER_SIZE + this.size*RECORD_SIZE){throw new IllegalStateException("Puzzle bank is truncated");}
+
+			int n = (int) ((this.size + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS);
+			this.segments = new ByteBuffer[n];
+			for(int s = 0; s < n; s++){
+				long first = (long) s * SEGMENT_RECORDS;
+				long records = Math.min(SEGMENT_RECORDS, this.size - first);
+				this.segments[s] = ch.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first*RECORD_SIZE, records*RECORD_SIZE);
+			}
+		}catch(IOException e){
+			this.file.close();
+			throw e;
+		}catch(RuntimeException e){
+			this.file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the number of puzzles in the bank
+	 */
+	public long size(){
+		return this.size;
+	}
+
+	/**
+	 * Builds the puzzle at a given index, decoding it straight from the mapped file into the Puzzle's Grid
+	 * @param index - the index of the puzzle, must be in the range [0,size())
+	 * @return a new Puzzle whose nonzero values are givens
+	 * @throws IndexOutOfBoundsException if index is not in the specified range
+	 */
+	public Puzzle getPuzzle(long index){
+		Grid g = new Grid();
+		if(!g.loadPacked(segment(index), offset(index), true)){throw new IllegalStateException("Puzzle bank record contains an invalid value");}
+		return new Puzzle(g);
+	}
+
+	/**
+	 * Reads the values of the puzzle at a given index into an array
+	 * @param index - the index of the puzzle, must be in the range [0,size())
+	 * @param values - an int array of size 81 that receives the values in row-major order
+	 * @throws IndexOutOfBoundsException if index is not in the specified range
+	 * @throws NullPointerException if values is null
+	 * @throws IllegalArgumentException if values is not of size 81
+	 */
+	public void read(long index, int[] values){
+		if(values == null){throw new NullPointerException("values cannot be null");}
+		if(values.length != 81){throw new IllegalArgumentException("values must be of size 81");}
+		ByteBuffer seg = segment(index);
+		int at = offset(index);
+		for(int i = 0; i < 81; i++){
+			values[i] = value(seg, at, i);
+		}
+	}
+
+	/**
+	 * Closes the file. Mapped memory is released once the PuzzleBank is garbage collected.
+	 * @throws IOException if the file cannot be closed
+	 */
+	public void close() throws IOException{
+		this.file.close();
+	}
+
+	private ByteBuffer segment(long index){
+		if(index < 0 || index >= this.size){throw new IndexOutOfBoundsException("Index " + index + " out of bounds for bank of size " + this.size);}
+		return this.segments[(int) (index / SEGMENT_RECORDS)];
+	}
+
+	private static int offset(long index){
+		return (int) (index % SEGMENT_RECORDS) * RECORD_SIZE;
+	}
+
+	/**
+	 * Decodes value i of the record starting at byte at of seg. Absolute gets do not move the buffer's
+	 * position, so this is safe to call from several threads.
+	 */
+	private static int value(ByteBuffer seg, int at, int i){
+		int b = seg.get(at + (i >> 1));
+		int v = (i & 1) == 0 ? (b >> 4) & 0xF : b & 0xF;
+		if(v > 9){throw new IllegalStateException("Puzzle bank record contains an invalid value");}
+		return v;
+	}
+
+	/**
+	 * Encodes 81 values into a record
+	 * @param values - an int array of size 81 containing numbers in the range [0,9]
+	 * @param record - a byte array of size RECORD_SIZE that receives the encoding
+	 */
+	static void encode(int[] values, byte[] record){
+		Arrays.fill(record, (byte) 0);
+		for(int i = 0; i < 81; i++){
+			int shift = (i & 1) == 0 ? 4 : 0;
+			record[i >> 1] |= values[i] << shift;
+		}
+	}
+
+	/**
+	 * Converts a text file of puzzles, in any format accepted by PuzzleReader, into a bank file. The text file
+	 * is streamed, so it may be of any size.
+	 * @param text - the text file to read
+	 * @param bank - the bank file to write, replaced if it exists
+	 * @return the number of puzzles written
+	 * @throws NullPointerException if text or bank is null
+	 * @throws IOException if either file cannot be read or written
+	 * @throws IllegalStateException if the text file is improperly formatted or holds a puzzle that is not 9x9
+	 */
+	public static long convert(File text, File bank) throws IOException{
+		if(text == null || bank == null){throw new NullPointerException("Files cannot be null");}
+		long count = 0;
+		PuzzleReader in = new PuzzleReader(text);
+		try{
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(bank), 1 << 16));
+			try{
+				out.writeInt(MAGIC);
+				out.writeShort(VERSION);
+				out.writeShort(RECORD_SIZE);
+				out.writeLong(0);
+				int[] values = new int[81];
+				byte[] record = new byte[RECORD_SIZE];
+				int size;
+				while((size = in.nextSize()) != 0){
+					if(size != 81){throw new IllegalStateException("A puzzle bank only holds 9x9 puzzles, but puzzle " + (count+1) + " has " + size + " values");}
+					in.read(values);
+					encode(values, record);
+					out.write(record);
+					count++;
+				}
+			}finally{
+				out.close();
+			}
+		}finally{
+			in.close();
+		}
+
+		// Fill in the record count now that it is known
+		RandomAccessFile raf = new RandomAccessFile(bank, "rw");
+		try{
+			raf.seek(8);
+			raf.writeLong(count);
+		}finally{
+			raf.close();
+		}
+		return count;
+	}
+}
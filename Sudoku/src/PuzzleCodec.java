@@ -0,0 +1,215 @@
+import java.nio.*;
+
+/**
+ * <p>
+ * PuzzleCodec converts a puzzle to and from a compact binary form, small enough to store and send large numbers
+ * of games in progress.
+ * </p>
+ * <p>
+ * An encoding always starts with the 81 values in row-major order, 4 bits per value, with the first value of
+ * each pair in the high half of the byte. This takes 40.5 bytes, and the spare half byte at the end holds flags
+ * saying which optional sections follow:
+ * <ul>
+ * <li>FIXED: 11 bytes with one bit per cell, set for the givens. Bit i is bit (7 - i%8) of byte i/8. Without
+ * this section every nonzero value is decoded as a given, as when a puzzle is loaded from a file.</li>
+ * <li>MARKS: the pencil marks of each empty cell, in row-major order, as 9 bits each packed with the highest bit
+ * first, padded with 0 bits to a whole byte.</li>
+ * </ul>
+ * With no flags the encoding is exactly 41 bytes, the same as a PuzzleBank record. A puzzle with 30 givens and
+ * all its pencil marks takes 41 + 11 + 58 = 110 bytes.
+ * </p>
+ * <p>
+ * Only standard 9x9 Grids can be encoded; the format has no room for the digits of the larger Layouts.
+ * </p>
+ */
+public final class PuzzleCodec {
+
+	/**
+	 * Flag for the section holding which cells are givens
+	 */
+	public static final int FIXED = 1;
+
+	/**
+	 * Flag for the section holding the pencil marks of every empty cell
+	 */
+	public static final int MARKS = 2;
+
+	/**
+	 * The size in bytes of the values section, which ends with the flags
+	 */
+	public static final int VALUES_SIZE = 41;
+
+	/**
+	 * The size in bytes of the FIXED section
+	 */
+	private static final int FIXED_SIZE = 11;
+
+	private PuzzleCodec(){}
+
+	/**
+	 * Returns the number of bytes that encode(g, flags, out) will write
+	 * @param g - the Grid to encode
+	 * @param flags - a combination of FIXED and MARKS
+	 * @return the size of the encoding in bytes
+	 * @throws NullPointerException if g is null
+	 * @throws IllegalArgumentException if flags contains unknown bits or g is not a standard 9x9 Grid
+	 */
+	public static int size(Grid g, int flags){
+		checkFlags(flags);
+		if(g.getLayout() != Layout.STANDARD){throw new IllegalArgumentException("Only 9x9 grids can be encoded");}
+		int n = VALUES_SIZE;
+		if((flags & FIXED) != 0){
+			n += FIXED_SIZE;
+		}
+		if((flags & MARKS) != 0){
+			n += ((81 - g.getFilledCount())*9 + 7) >> 3;
+		}
+		return n;
+	}
+
+	/**
+	 * Encodes a Puzzle into a new array
+	 * @param p - the Puzzle to encode
+	 * @param flags - a combination of FIXED and MARKS saying which optional sections to include
+	 * @return the encoding
+	 * @throws NullPointerException if p is null
+	 * @throws IllegalArgumentException if flags contains unknown bits or p is not a standard 9x9 Puzzle
+	 */
+	public static byte[] encode(Puzzle p, int flags){
+		if(p == null){throw new NullPointerException("p cannot be null");}
+		byte[] b = new byte[size(p.getGrid(), flags)];
+		encode(p.getGrid(), flags, ByteBuffer.wrap(b));
+		return b;
+	}
+
+	/**
+	 * Encodes a Grid at the position of a buffer, advancing the position past the encoding
+	 * @param g - the Grid to encode
+	 * @param flags - a combination of FIXED and MARKS saying which optional sections to include
+	 * @param out - the buffer to write to
+	 * @throws NullPointerException if g or out is null
+	 * @throws IllegalArgumentException if flags contains unknown bits or g is not a standard 9x9 Grid
+	 * @throws BufferOverflowException if out has fewer than size(g, flags) bytes remaining
+	 */
+	public static void encode(Grid g, int flags, ByteBuffer out){
+		if(out == null){throw new NullPointerException("out cannot be null");}
+		if(out.remaining() < size(g, flags)){throw new BufferOverflowException();}
+		for(int i = 0; i < 80; i += 2){
+			out.put((byte) (g.getValue(i) << 4 | g.getValue(i+1)));
+		}
+		out.put((byte) (g.getValue(80) << 4 | flags));
+
+		if((flags & FIXED) != 0){
+			for(int k = 0; k < FIXED_SIZE; k++){
+				int b = 0;
+				for(int i = k*8; i < k*8 + 8; i++){
+					b <<= 1;
+					if(i < 81 && g.isFixed(i)){
+						b |= 1;
+					}
+				}
+				out.put((byte) b);
+			}
+		}
+
+		if((flags & MARKS) != 0){
+			// Bits waiting to be written are the low n bits of acc
+			int acc = 0, n = 0;
+			for(int i = 0; i < 81; i++){
+				if(g.getValue(i) != 0){continue;}
+				acc = acc << 9 | g.getMarks(i);
+				n += 9;
+				while(n >= 8){
+					n -= 8;
+					out.put((byte) (acc >> n));
+				}
+			}
+			if(n > 0){
+				out.put((byte) (acc << (8 - n)));
+			}
+		}
+	}
+
+	/**
+	 * Decodes a Puzzle from the position of a buffer, advancing the position past the encoding
+	 * @param in - the buffer to read from
+	 * @return a new Puzzle
+	 * @throws NullPointerException if in is null
+	 * @throws BufferUnderflowException if in ends before the encoding does
+	 * @throws IllegalStateException if the encoding is invalid
+	 */
+	public static Puzzle decode(ByteBuffer in){
+		return new Puzzle(decodeGrid(in));
+	}
+
+	/**
+	 * Decodes a Puzzle from an array
+	 * @param b - the encoding, as returned by encode(Puzzle, int)
+	 * @return a new Puzzle
+	 * @throws NullPointerException if b is null
+	 * @throws BufferUnderflowException if b ends before the encoding does
+	 * @throws IllegalStateException if the encoding is invalid
+	 */
+	public static Puzzle decode(byte[] b){
+		if(b == null){throw new NullPointerException("b cannot be null");}
+		return decode(ByteBuffer.wrap(b));
+	}
+
+	/**
+	 * Decodes a Grid from the position of a buffer, advancing the position past the encoding
+	 * @param in - the buffer to read from
+	 * @return a new Grid
+	 * @throws NullPointerException if in is null
+	 * @throws BufferUnderflowException if in ends before the encoding does
+	 * @throws IllegalStateException if the encoding is invalid
+	 */
+	public static Grid decodeGrid(ByteBuffer in){
+		if(in == null){throw new NullPointerException("in cannot be null");}
+		if(in.remaining() < VALUES_SIZE){throw new BufferUnderflowException();}
+		int at = in.position();
+		int flags = in.get(at + VALUES_SIZE - 1) & 0xF;
+		if((flags & ~(FIXED | MARKS)) != 0){throw new IllegalStateException("Encoding contains unknown flags");}
+		Grid g = new Grid();
+		if(!g.loadPacked(in, at, (flags & FIXED) == 0)){throw new IllegalStateException("Encoding contains an invalid value");}
+		in.position(at + VALUES_SIZE);
+
+		long[] fixed = new long[2];
+		if((flags & FIXED) != 0){
+			for(int k = 0; k < FIXED_SIZE; k++){
+				int b = in.get();
+				for(int i = k*8; i < k*8 + 8; i++){
+					if((b & (0x80 >> (i - k*8))) == 0){continue;}
+					if(i >= 81 || g.getValue(i) == 0){throw new IllegalStateException("Encoding fixes an empty cell");}
+					fixed[i >> 6] |= 1L << i;
+				}
+			}
+		}
+
+		if((flags & MARKS) != 0){
+			// Bits read but not yet used are the low n bits of acc
+			int acc = 0, n = 0;
+			for(int i = 0; i < 81; i++){
+				if(g.getValue(i) != 0){continue;}
+				while(n < 9){
+					acc = acc << 8 | (in.get() & 0xFF);
+					n += 8;
+				}
+				n -= 9;
+				g.setMarks(i, (acc >> n) & Grid.ALL_MARKS);
+			}
+		}
+
+		if((flags & FIXED) != 0){
+			for(int i = 0; i < 81; i++){
+				if((fixed[i >> 6] & (1L << i)) != 0){
+					g.setFixed(i, true);
+				}
+			}
+		}
+		return g;
+	}
+
+	private static void checkFlags(int flags){
+		if((flags & ~(FIXED | MARKS)) != 0){throw new IllegalArgumentException("flags can only contain FIXED and MARKS");}
+	}
+}
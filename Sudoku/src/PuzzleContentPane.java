@@ -2,61 +2,91 @@ import java.util.*;
 import java.io.*;
 import javax.swing.*;
 import java.awt.*;
+import java.beans.*;
 
+/**
+ * The window that shows a Puzzle. The whole board is drawn by a single BoardComponent, and the progress of a
+ * background task, see track(SwingWorker), is shown in a bar under it while the task runs.
+ */
 public class PuzzleContentPane extends JFrame{
 	
 	private Puzzle puzzle;
-	private JPanel[][] mainTable;
-	private JLabel[][] lbls;
+	private BoardComponent board;
+	private JProgressBar progress;
 	
 	public PuzzleContentPane(Puzzle p){
 		this.puzzle = p;
-		JPanel mainPanel = new JPanel(new GridLayout(3,3));
-		lbls = new JLabel[9][9];
-		mainTable = new JPanel[3][3];
-		Block curBlock = null;
-		Cell curCell = null;
-		JPanel curPanel = null;
-		for(int i = 0; i < 3; i++){
-			for(int j = 0; j < 3; j++){
-				curBlock = puzzle.getBlock(i+j);
-				curPanel = new JPanel(new GridLayout(3,3));
-				for(int k = 0; k < 3; k++){
-					for(int q = 0; q < 3; q++){
-						curCell = curBlock.getCell(k, q);
-						JPanel temp = new JPanel(new FlowLayout());
-						JLabel lbl = new JLabel(curCell.toString());
-						lbl.setHorizontalAlignment(JLabel.CENTER);
-						lbl.setVerticalAlignment(JLabel.CENTER);
-						lbl.setSize(50, 50);
-						lbls[i+k][j+q] = lbl;
-						temp.add(lbl);
-						temp.setAlignmentX(JPanel.CENTER_ALIGNMENT);
-						temp.setAlignmentY(JPanel.CENTER_ALIGNMENT);
-						temp.setBorder(BorderFactory.createLineBorder(Color.BLACK));
-						temp.setSize(50, 50);
-						curPanel.add(temp);
-					}
-				}
-				curPanel.setSize(150, 150);
-				curPanel.setBorder(BorderFactory.createLineBorder(Color.BLACK));
-				mainTable[i][j] = curPanel;
-				mainPanel.add(mainTable[i][j]);
-			}
-		}
-		mainPanel.setBorder(BorderFactory.createLineBorder(Color.BLACK));
+		board = new BoardComponent(p);
+		JPanel mainPanel = new JPanel(new BorderLayout());
+		mainPanel.add(board, BorderLayout.CENTER);
+		progress = new JProgressBar(0, 100);
+		progress.setVisible(false);
+		mainPanel.add(progress, BorderLayout.SOUTH);
+		mainPanel.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+		mainPanel.setBackground(Color.WHITE);
 		setContentPane(mainPanel);
 		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 		setTitle("Sudoku");
-		setSize(450, 450);
+		pack();
 		setVisible(true);
 	}
 	
-	public void refresh(){
-		for(int i = 0; i < 9; i++){
-			for(int j = 0; j < 9; j++){
-				lbls[i][j].setText(puzzle.getCell(i, j).toString());
-			}
+	/**
+	 * @return the component that draws the board
+	 */
+	public BoardComponent getBoard(){
+		return board;
+	}
+	
+	/**
+	 * Shows another Puzzle, resizing the window if it has another Layout
+	 * @param p - the Puzzle to show
+	 * @throws NullPointerException if p is null
+	 */
+	public void setPuzzle(Puzzle p){
+		Layout old = puzzle.getLayout();
+		board.setPuzzle(p);
+		this.puzzle = p;
+		if(p.getLayout() != old){
+			pack();
 		}
 	}
+	
+	/**
+	 * Shows the progress of a background task in the bar under the board until the task is done. Progress is
+	 * shown as indeterminate until the task reports some.
+	 * @param w - the task to follow, must not be done yet
+	 * @throws NullPointerException if w is null
+	 */
+	public void track(final SwingWorker<?, ?> w){
+		if(w == null){throw new NullPointerException("w cannot be null");}
+		progress.setValue(0);
+		progress.setIndeterminate(true);
+		progress.setVisible(true);
+		w.addPropertyChangeListener(new PropertyChangeListener(){
+			public void propertyChange(PropertyChangeEvent e){
+				if("progress".equals(e.getPropertyName())){
+					progress.setIndeterminate(false);
+					progress.setValue((Integer) e.getNewValue());
+				}else if("state".equals(e.getPropertyName()) && e.getNewValue() == SwingWorker.StateValue.DONE){
+					progress.setVisible(false);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Reports an error to the user in a dialog
+	 * @param message - the text of the error
+	 */
+	public void showError(String message){
+		JOptionPane.showMessageDialog(this, message, "Sudoku", JOptionPane.ERROR_MESSAGE);
+	}
+	
+	/**
+	 * Repaints any Cells the board has not been told about, see BoardComponent.refresh()
+	 */
+	public void refresh(){
+		board.refresh();
+	}
 }
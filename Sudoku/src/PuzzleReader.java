@@ -0,0 +1,259 @@
+import java.util.*;
+import java.io.*;
+
+/**
+ * <p>
+ * PuzzleReader reads any number of puzzles, one after another, from a stream. Two formats are accepted and
+ * may be mixed in the same file:
+ * <ul>
+ * <li>nine lines of nine values, such as the space separated format of puzzle_bank.txt</li>
+ * <li>one line of 81 values, such as "003020600900305001...", or of side*side values for the other Layouts,
+ * as written by the generate command of CommandLine</li>
+ * </ul>
+ * A value is a digit or a letter A-P for the values 10-25, with 0 or '.' meaning an empty Cell. Any other
+ * character on a line is ignored, as are blank lines and everything after a '#' on a line. A one line puzzle of
+ * 81 values may be followed by other text, such as a rating, which is ignored once 81 values have been read. The
+ * other Layouts must have exactly side*side values on their line.
+ * </p>
+ * <p>
+ * The input is parsed byte by byte from a fixed size buffer, so no Strings are built and memory use does not
+ * depend on the size of the file. Puzzles can be read as Puzzle objects through the Iterator interface, or
+ * into a caller supplied array with read(int[]) to avoid allocating anything per puzzle.
+ * </p>
+ */
+public class PuzzleReader implements Iterator<Puzzle>, Closeable {
+
+	/**
+	 * The stream puzzles are read from
+	 */
+	private final InputStream in;
+
+	/**
+	 * Bytes read from in but not yet parsed are buf[pos, len)
+	 */
+	private final byte[] buf = new byte[1 << 16];
+	private int pos;
+	private int len;
+
+	/**
+	 * Values of the current line, at most the size of the largest Layout are kept
+	 */
+	private final int[] line = new int[Layout.MAX_SIDE*Layout.MAX_SIDE];
+
+	/**
+	 * The puzzle that hasNext() read ahead, its first nextSize values are valid when ready is true
+	 */
+	private final int[] next = new int[Layout.MAX_SIDE*Layout.MAX_SIDE];
+	private int nextSize;
+	private boolean ready;
+
+	/**
+	 * The number of lines read so far, used in error messages
+	 */
+	private int lineNumber;
+
+	/**
+	 * The number of puzzles returned so far
+	 */
+	private long count;
+
+	/**
+	 * Creates a PuzzleReader that reads from a stream. Closing the PuzzleReader closes the stream.
+	 * @param in - the stream to read from
+	 * @throws NullPointerException if in is null
+	 */
+	public PuzzleReader(InputStream in){
+		if(in == null){throw new NullPointerException("in cannot be null");}
+		this.in = in;
+	}
+
+	/**
+	 * Creates a PuzzleReader that reads from a file
+	 * @param f - the file to read from
+	 * @throws NullPointerException if f is null
+	 * @throws FileNotFoundException if the file referenced by f cannot be opened
+	 */
+	public PuzzleReader(File f) throws FileNotFoundException{
+		this(new FileInputStream(f));
+	}
+
+	/**
+	 * Returns whether there is another puzzle in the stream
+	 * @return true if next() will return a Puzzle
+	 * @throws IllegalStateException if the stream cannot be read or is improperly formatted
+	 */
+	public boolean hasNext(){
+		if(!this.ready){
+			this.nextSize = fill(this.next);
+			this.ready = this.nextSize != 0;
+		}
+		return this.ready;
+	}
+
+	/**
+	 * Returns the number of values in the next puzzle, which is 81 for a standard puzzle and side*side for the
+	 * other Layouts, so that an array of the right size can be passed to read(int[])
+	 * @return the size of the next puzzle, or 0 if there are no more puzzles
+	 * @throws IllegalStateException if the stream cannot be read or is improperly formatted
+	 */
+	public int nextSize(){
+		return hasNext() ? this.nextSize : 0;
+	}
+
+	/**
+	 * Reads the next puzzle
+	 * @return a new Puzzle whose nonzero values are givens
+	 * @throws NoSuchElementException if there are no more puzzles
+	 * @throws IllegalStateException if the stream cannot be read or is improperly formatted
+	 */
+	public Puzzle next(){
+		if(!hasNext()){throw new NoSuchElementException("No more puzzles");}
+		this.ready = false;
+		this.count++;
+		return new Puzzle(Arrays.copyOf(this.next, this.nextSize));
+	}
+
+	/**
+	 * Reads the next puzzle into an array without creating a Puzzle
+	 * @param values - an int array of size nextSize() that receives the values in row-major order
+	 * @return true if a puzzle was read, false if there are no more puzzles
+	 * @throws NullPointerException if values is null
+	 * @throws IllegalArgumentException if values is not of size 81 or side*side for one of the other Layouts
+	 * @throws IllegalStateException if the stream cannot be read or is improperly formatted, or if the next
+	 * puzzle is not of the same size as values
+	 */
+	public boolean read(int[] values){
+		if(values == null){throw new NullPointerException("values cannot be null");}
+		Layout.forSize(values.length);
+		if(!hasNext()){return false;}
+		if(this.nextSize != values.length){throw error("Expected a puzzle of " + values.length + " values but found " + this.nextSize);}
+		System.arraycopy(this.next, 0, values, 0, values.length);
+		this.ready = false;
+		this.count++;
+		return true;
+	}
+
+	/**
+	 * This operation is unsupported because puzzles are read from a stream
+	 * @throws UnsupportedOperationException unconditionally
+	 */
+	public void remove(){
+		throw new UnsupportedOperationException("Cannot remove a puzzle from a stream");
+	}
+
+	/**
+	 * @return the number of puzzles returned by next() and read(int[]) so far
+	 */
+	public long getCount(){
+		return this.count;
+	}
+
+	/**
+	 * Closes the underlying stream
+	 * @throws IOException if the stream cannot be closed
+	 */
+	public void close() throws IOException{
+		this.in.close();
+	}
+
+	/**
+	 * Reads lines until a whole puzzle has been read into values
+	 * @return the number of values read, or 0 if the end of the stream was reached before any value of a new puzzle
+	 */
+	private int fill(int[] values){
+		int n = 0;
+		int c;
+		while((c = readLine()) >= 0){
+			if(c == 0){
+				if(n != 0){throw error("Puzzle ended after " + n + " values");}
+			}else if(c == 9){
+				copy(values, n, 9, 9);
+				n += 9;
+				if(n == 81){return n;}
+			}else if(n == 0 && oneLineSize(c) != 0){
+				int size = oneLineSize(c);
+				copy(values, 0, size, Layout.forSize(size).side);
+				return size;
+			}else{
+				throw error("Expected 9 values, or a whole puzzle on one line, but found " + c);
+			}
+		}
+		if(n != 0){throw error("Puzzle ended after " + n + " values");}
+		return 0;
+	}
+
+	/**
+	 * Returns the size of the one line puzzle on a line of c values: 81 if there are at least 81 and fewer than
+	 * 256, since a standard puzzle may be followed by other text, or c if it is the size of another Layout
+	 * @return the size of the puzzle, or 0 if the line does not hold one
+	 */
+	private static int oneLineSize(int c){
+		if(c >= 81 && c < 256){return 81;}
+		for(int box = Layout.MIN_BOX; box <= Layout.MAX_BOX; box++){
+			if(c == box*box*box*box){return c;}
+		}
+		return 0;
+	}
+
+	/**
+	 * Copies the first count values of line to values[at, at+count), checking that none is larger than side
+	 */
+	private void copy(int[] values, int at, int count, int side){
+		for(int k = 0; k < count; k++){
+			int v = this.line[k];
+			if(v > side){throw error("Value " + Render.compact(v) + " is too large for a puzzle with " + side + " rows");}
+			values[at+k] = v;
+		}
+	}
+
+	/**
+	 * Parses the next line of input into line
+	 * @return the number of values on the line, or -1 at the end of the stream
+	 */
+	private int readLine(){
+		int c = 0;
+		boolean comment = false;
+		boolean any = false;
+		while(true){
+			if(this.pos == this.len){
+				try{
+					this.len = this.in.read(this.buf);
+				}catch(IOException e){
+					throw new IllegalStateException("Error encountered while reading puzzles", e);
+				}
+				this.pos = 0;
+				if(this.len <= 0){
+					this.len = 0;
+					if(!any){return -1;}
+					break;
+				}
+			}
+			int b = this.buf[this.pos++];
+			any = true;
+			if(b == '\n'){
+				break;
+			}
+			if(comment){
+				continue;
+			}
+			if(b == '#'){
+				comment = true;
+			}else if(b >= '0' && b <= '9'){
+				if(c < this.line.length){this.line[c] = b - '0';}
+				c++;
+			}else if(b >= 'A' && b <= 'P'){
+				if(c < this.line.length){this.line[c] = b - 'A' + 10;}
+				c++;
+			}else if(b == '.'){
+				if(c < this.line.length){this.line[c] = 0;}
+				c++;
+			}
+		}
+		this.lineNumber++;
+		return c;
+	}
+
+	private IllegalStateException error(String msg){
+		return new IllegalStateException("Improperly formatted puzzle on line " + this.lineNumber + ": " + msg);
+	}
+}
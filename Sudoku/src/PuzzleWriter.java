@@ -0,0 +1,157 @@
+import java.io.*;
+
+/**
+ * <p>
+ * PuzzleWriter writes any number of puzzles, one after another, to a stream in a text format that PuzzleReader
+ * reads back. Two formats are offered:
+ * <ul>
+ * <li>nine lines of nine space separated values, the format of puzzle_bank.txt, with a blank line between
+ * puzzles</li>
+ * <li>one line of 81 values per puzzle, such as "003020600900305001..."</li>
+ * </ul>
+ * In both, 0 is an empty Cell. Puzzles of the other Layouts are always written as one line of side*side values,
+ * with letters A-P for the values 10-25, since that is the only form PuzzleReader reads for them.
+ * </p>
+ * <p>
+ * Output is built byte by byte in a fixed size buffer, so no Strings are built for each puzzle.
+ * </p>
+ */
+public class PuzzleWriter implements Closeable, Flushable {
+
+	/**
+	 * The stream puzzles are written to
+	 */
+	private final OutputStream out;
+
+	/**
+	 * true to write each puzzle on one line
+	 */
+	private final boolean oneLine;
+
+	/**
+	 * Bytes written but not yet passed to out are buf[0, len)
+	 */
+	private final byte[] buf = new byte[1 << 16];
+	private int len;
+
+	/**
+	 * The number of puzzles written so far
+	 */
+	private long count;
+
+	/**
+	 * Creates a PuzzleWriter that writes to a stream in the nine line format. Closing the PuzzleWriter closes the
+	 * stream.
+	 * @param out - the stream to write to
+	 * @throws NullPointerException if out is null
+	 */
+	public PuzzleWriter(OutputStream out){
+		this(out, false);
+	}
+
+	/**
+	 * Creates a PuzzleWriter that writes to a stream. Closing the PuzzleWriter closes the stream.
+	 * @param out - the stream to write to
+	 * @param oneLine - true to write each puzzle as one line of 81 values, false for nine lines of nine. Other
+	 * Layouts are written on one line either way.
+	 * @throws NullPointerException if out is null
+	 */
+	public PuzzleWriter(OutputStream out, boolean oneLine){
+		if(out == null){throw new NullPointerException("out cannot be null");}
+		this.out = out;
+		this.oneLine = oneLine;
+	}
+
+	/**
+	 * Creates a PuzzleWriter that writes to a file in the nine line format, replacing it if it exists
+	 * @param f - the file to write to
+	 * @throws NullPointerException if f is null
+	 * @throws FileNotFoundException if the file referenced by f cannot be opened for writing
+	 */
+	public PuzzleWriter(File f) throws FileNotFoundException{
+		this(new FileOutputStream(f), false);
+	}
+
+	/**
+	 * Writes the values of a Puzzle
+	 * @param p - the Puzzle to write
+	 * @throws NullPointerException if p is null
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(Puzzle p) throws IOException{
+		if(p == null){throw new NullPointerException("p cannot be null");}
+		write(p.getValues());
+	}
+
+	/**
+	 * Writes a puzzle given as an array of 81 values in row-major order, or side*side values for the other Layouts
+	 * @param values - an int array of size 81 containing numbers in the range [0,9], or of size side*side
+	 * containing numbers in the range [0,side]
+	 * @throws NullPointerException if values is null
+	 * @throws IllegalArgumentException if values is not of a supported size or contains numbers outside the range [0,side]
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(int[] values) throws IOException{
+		if(values == null){throw new NullPointerException("values cannot be null");}
+		int side = Layout.forSize(values.length).side;
+		for(int v : values){
+			if(v > side || v < 0){throw new IllegalArgumentException("values cannot contain numbers outside the range [0," + side + "]");}
+		}
+		// A puzzle takes at most one line of 625 bytes, or 9 lines of 18 bytes plus a blank line
+		if(this.buf.length - this.len < values.length + 9*18 + 1){
+			flushBuffer();
+		}
+		if(this.oneLine || side != 9){
+			for(int i = 0; i < values.length; i++){
+				this.buf[this.len++] = (byte) Render.compact(values[i]);
+			}
+			this.buf[this.len++] = '\n';
+		}else{
+			if(this.count > 0){
+				this.buf[this.len++] = '\n';
+			}
+			for(int r = 0; r < 9; r++){
+				for(int c = 0; c < 9; c++){
+					this.buf[this.len++] = (byte) ('0' + values[r*9 + c]);
+					this.buf[this.len++] = (byte) (c == 8 ? '\n' : ' ');
+				}
+			}
+		}
+		this.count++;
+	}
+
+	/**
+	 * @return the number of puzzles written so far
+	 */
+	public long getCount(){
+		return this.count;
+	}
+
+	/**
+	 * Writes any buffered puzzles to the stream and flushes it
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void flush() throws IOException{
+		flushBuffer();
+		this.out.flush();
+	}
+
+	/**
+	 * Writes any buffered puzzles and closes the underlying stream
+	 * @throws IOException if the stream cannot be written or closed
+	 */
+	public void close() throws IOException{
+		try{
+			flushBuffer();
+		}finally{
+			this.out.close();
+		}
+	}
+
+	private void flushBuffer() throws IOException{
+		if(this.len > 0){
+			this.out.write(this.buf, 0, this.len);
+			this.len = 0;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+import java.io.*;
+import java.nio.*;
+
+/**
+ * Helpers shared by the render methods of Puzzle and Group. Boards are formatted into a char array once and
+ * then handed to the output in a single call, so no intermediate Strings are built.
+ */
+final class Render {
+
+	private Render(){}
+
+	/**
+	 * Returns the character a value is shown as in the pretty formats
+	 * @param v - an int in the range [0,25]
+	 * @return the digit, a letter A-P for the values 10-25, or a space for an empty cell
+	 */
+	static char pretty(int v){
+		return v == 0 ? ' ' : compact(v);
+	}
+
+	/**
+	 * Returns the character a value is shown as in the single line formats
+	 * @param v - an int in the range [0,25]
+	 * @return the digit, or a letter A-P for the values 10-25
+	 */
+	static char compact(int v){
+		return v < 10 ? (char) ('0' + v) : (char) ('A' + v - 10);
+	}
+
+	/**
+	 * Appends buf[0, len) to out, writing the array directly if out is a Writer or StringBuilder
+	 */
+	static void append(Appendable out, char[] buf, int len) throws IOException{
+		if(out == null){throw new NullPointerException("out cannot be null");}
+		if(out instanceof Writer){
+			((Writer) out).write(buf, 0, len);
+		}else if(out instanceof StringBuilder){
+			((StringBuilder) out).append(buf, 0, len);
+		}else{
+			out.append(CharBuffer.wrap(buf, 0, len));
+		}
+	}
+}
@@ -9,41 +9,33 @@ import java.io.*;
  */
 public class Row extends Group{
 
-	/**
-	 * An array that stores the Cell objects of this class. This array will always be sorted into column-major (ascending) order.
-	 */
-	private Cell[] cells;
-	
 	/**
 	 * The Row class stores a row of Cells in column-major order.
-	 * @param c - An array of Cells, the array must be exactly size 9
+	 * @param c - An array of Cells, the array must be exactly size 9, or 4, 16 or 25 for the other Layouts
 	 * @throws NullPointerException if c is null
-	 * @throws IllegalArgumentException if array is not of size 9
+	 * @throws IllegalArgumentException if array is not of size 4, 9, 16 or 25
 	 */
 	public Row(Cell[] c){
-		if(c.length != 9){throw new IllegalArgumentException("Can only take arrays of size 9");}
-		cells = c.clone();
+		super(c);
+	}
+	
+	/**
+	 * Creates a Row that is a view of row r of g
+	 * @param g - the Grid being viewed
+	 * @param r - the row, an int in the range [0,side)
+	 */
+	Row(Grid g, int r){
+		super(g, g.getLayout().row(r));
 	}
 	
 	/**
 	 * Gets the Cell at column c of this
-	 * @param c - an int in the range [0,9)
+	 * @param c - an int in the range [0,size())
 	 * @return the Cell at column c of this
 	 * @throws IllegalArgumentException if r is not in the specified range
 	 */
 	public Cell getCell(int c){
-		if(c >= 9 || c < 0){throw new IllegalArgumentException("Index out of bounds");}
-		return cells[c];
-	}
-
-	/**
-	 * The abstraction function for Row will print each element of cells on the same line with each element surrounded by square braces
-	 */
-	public String toString(){
-		String build = "";
-		for(Cell c : cells){
-			build += "[" + c + "]";
-		}
-		return build;
+		if(c >= size() || c < 0){throw new IllegalArgumentException("Index out of bounds");}
+		return cellAt(c);
 	}
 }
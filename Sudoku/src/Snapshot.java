@@ -0,0 +1,142 @@
+/**
+ * <p>
+ * A Snapshot is an immutable copy of the state of a Grid at one moment: the values, pencil marks and givens,
+ * packed into one byte array of values and one int array of marks, along with the counters needed for checkWin().
+ * </p>
+ * <p>
+ * Snapshots are taken with Grid.snapshot() or Puzzle.snapshot() and may be taken and read from any thread while
+ * another thread keeps changing the puzzle. Readers such as rendering, win checks or hints can then work on the
+ * Snapshot without locks and without seeing half of a move.
+ * </p>
+ */
+public final class Snapshot {
+
+	/**
+	 * The shape of the board
+	 */
+	private final Layout layout;
+
+	private final byte[] values;
+	private final int[] marks;
+
+	/**
+	 * The fixed cells, bit (i%64) of fixed[i/64] is set if cell i is fixed
+	 */
+	private final long[] fixed;
+
+	private final int filled;
+	private final int conflicts;
+
+	/**
+	 * The version of the Grid this was taken at
+	 */
+	private final int version;
+
+	/**
+	 * Creates a Snapshot from arrays that are not copied and must not be modified afterwards
+	 */
+	Snapshot(Layout layout, byte[] values, int[] marks, long[] fixed, int filled, int conflicts, int version){
+		this.layout = layout;
+		this.values = values;
+		this.marks = marks;
+		this.fixed = fixed;
+		this.filled = filled;
+		this.conflicts = conflicts;
+		this.version = version;
+	}
+
+	/**
+	 * @return the shape of the board
+	 */
+	public Layout getLayout(){
+		return this.layout;
+	}
+
+	/**
+	 * Returns the value of the cell at index i
+	 * @param i - the row-major index of the cell, must be in the range [0,size)
+	 * @return an int in the range [0,side]
+	 */
+	public int getValue(int i){
+		return this.values[i];
+	}
+
+	/**
+	 * Returns the pencil marks of the cell at index i as a bitmask
+	 * @param i - the row-major index of the cell, must be in the range [0,size)
+	 * @return a mask where bit (n-1) is set if the cell contains pencil mark n
+	 */
+	public int getMarks(int i){
+		return this.marks[i];
+	}
+
+	/**
+	 * Returns whether the cell at index i holds a given
+	 * @param i - the row-major index of the cell, must be in the range [0,size)
+	 * @return true if the cell is fixed
+	 */
+	public boolean isFixed(int i){
+		return (this.fixed[i >> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * Copies the values of every cell into a new array
+	 * @return an int array of size side*side in row-major order
+	 */
+	public int[] getValues(){
+		int[] v = new int[this.values.length];
+		for(int i = 0; i < v.length; i++){
+			v[i] = this.values[i];
+		}
+		return v;
+	}
+
+	/**
+	 * @return the number of cells with a nonzero value
+	 */
+	public int getFilledCount(){
+		return this.filled;
+	}
+
+	/**
+	 * @return the number of duplicate values summed over all units, 0 if no unit repeats a value
+	 */
+	public int getConflictCount(){
+		return this.conflicts;
+	}
+
+	/**
+	 * Returns whether the puzzle was complete and correct when this was taken, in constant time
+	 * @return true if every cell was filled and no unit repeated a value
+	 */
+	public boolean checkWin(){
+		return this.filled == this.values.length && this.conflicts == 0;
+	}
+
+	/**
+	 * Creates a new, changeable Puzzle with the state of this Snapshot, for example to search it for hints
+	 * @return a Puzzle backed by a new Grid
+	 */
+	public Puzzle toPuzzle(){
+		return new Puzzle(new Grid(this));
+	}
+
+	/**
+	 * @return the version of the Grid this Snapshot was taken at
+	 */
+	int getVersion(){
+		return this.version;
+	}
+
+	/**
+	 * @return the values in row-major order as digits, with 0 for an empty cell and the letters A-P for the
+	 * values 10-25 of larger Layouts
+	 */
+	public String toString(){
+		StringBuilder sb = new StringBuilder(this.values.length);
+		for(int i = 0; i < this.values.length; i++){
+			sb.append(Render.compact(this.values[i]));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * <p>
+ * A Solution is the immutable result of running a solver against a Puzzle. It records how many
+ * solutions were found (none, exactly one, or many) and holds the first solved grid that was found.
+ * </p>
+ * <p>
+ * Solvers stop searching as soon as a second solution is found, so a count of MULTIPLE means
+ * "two or more" rather than an exact number.
+ * </p>
+ */
+public class Solution {
+
+	/**
+	 * The Puzzle has no solution
+	 */
+	public static final int NONE = 0;
+	
+	/**
+	 * The Puzzle has exactly one solution
+	 */
+	public static final int UNIQUE = 1;
+	
+	/**
+	 * The Puzzle has two or more solutions
+	 */
+	public static final int MULTIPLE = 2;
+	
+	/**
+	 * The solved grid in row-major order, or null if count == NONE
+	 */
+	private final int[] grid;
+	
+	/**
+	 * One of NONE, UNIQUE or MULTIPLE
+	 */
+	private final int count;
+	
+	/**
+	 * The number of search nodes the solver visited, a measure of effort that can be compared between engines
+	 */
+	private final long nodes;
+	
+	/**
+	 * Creates a Solution
+	 * @param grid - the solved grid in row-major order, must be null if and only if count == NONE
+	 * @param count - one of NONE, UNIQUE or MULTIPLE
+	 * @throws IllegalArgumentException if count is not one of the specified values or does not agree with grid
+	 */
+	public Solution(int[] grid, int count){
+		this(grid, count, 0);
+	}
+	
+	/**
+	 * Creates a Solution that also records how much searching it took
+	 * @param grid - the solved grid in row-major order, must be null if and only if count == NONE
+	 * @param count - one of NONE, UNIQUE or MULTIPLE
+	 * @param nodes - the number of search nodes visited, must not be negative
+	 * @throws IllegalArgumentException if count is not one of the specified values or does not agree with grid, or nodes is negative
+	 */
+	public Solution(int[] grid, int count, long nodes){
+		if(count < NONE || count > MULTIPLE){throw new IllegalArgumentException("count must be NONE, UNIQUE or MULTIPLE");}
+		if((grid == null) != (count == NONE)){throw new IllegalArgumentException("grid must be null if and only if count is NONE");}
+		if(nodes < 0){throw new IllegalArgumentException("nodes cannot be negative");}
+		this.grid = grid;
+		this.count = count;
+		this.nodes = nodes;
+	}
+	
+	/**
+	 * Returns the number of solutions that were found
+	 * @return one of NONE, UNIQUE or MULTIPLE
+	 */
+	public int getCount(){
+		return this.count;
+	}
+	
+	/**
+	 * Returns the number of search nodes the solver visited. Each engine counts its own kind of node, so this is
+	 * only meaningful when comparing results of the same engine, or as a rough guide between engines.
+	 * @return the number of nodes, or 0 if the solver did not record it
+	 */
+	public long getNodes(){
+		return this.nodes;
+	}
+	
+	/**
+	 * @return true if at least one solution was found
+	 */
+	public boolean isSolvable(){
+		return this.count != NONE;
+	}
+	
+	/**
+	 * @return true if exactly one solution was found
+	 */
+	public boolean isUnique(){
+		return this.count == UNIQUE;
+	}
+	
+	/**
+	 * Returns a copy of the solved grid. If there were multiple solutions this is the first one found.
+	 * @return an int array of the size of the puzzle, 81 for a standard puzzle, in row-major order, or null if there
+	 * was no solution
+	 */
+	public int[] getGrid(){
+		return this.grid == null ? null : this.grid.clone();
+	}
+	
+	/**
+	 * Gets the solved value at the specified location
+	 * @param x - the row, must be in the range [0,9), or [0,side) for the other Layouts
+	 * @param y - the column, must be in the range [0,9), or [0,side) for the other Layouts
+	 * @return an int in the range [1,side]
+	 * @throws IllegalArgumentException if x or y are not in the specified ranges
+	 * @throws IllegalStateException if there was no solution
+	 */
+	public int getValue(int x, int y){
+		int side = this.grid == null ? 9 : Layout.forSize(this.grid.length).side;
+		if(x >= side || x < 0 || y >= side || y < 0){throw new IllegalArgumentException("Index out of bounds");}
+		if(this.grid == null){throw new IllegalStateException("There is no solution");}
+		return this.grid[x*side+y];
+	}
+	
+	/**
+	 * Builds a new Puzzle holding the solved grid
+	 * @return a completed Puzzle, or null if there was no solution
+	 */
+	public Puzzle toPuzzle(){
+		return this.grid == null ? null : new Puzzle(this.grid);
+	}
+	
+	/**
+	 * The abstraction function for Solution is the count followed by the solved grid as a single line of 81 digits,
+	 * with the values 10-25 of the other Layouts as the letters A-P
+	 * @return String representation of this
+	 */
+	public String toString(){
+		StringBuilder sb = new StringBuilder(90);
+		sb.append(this.count == NONE ? "NONE" : (this.count == UNIQUE ? "UNIQUE" : "MULTIPLE"));
+		if(this.grid != null){
+			sb.append(' ');
+			for(int v : this.grid){
+				sb.append(Render.compact(v));
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,275 @@
+import java.util.*;
+import java.io.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * <p>
+ * SolutionCache sits in front of another Solver and remembers the Solutions it has returned, so that a puzzle
+ * that is solved again is answered without searching.
+ * </p>
+ * <p>
+ * Puzzles are looked up by a fingerprint of their values, packed 4 bits per cell into 41 bytes as in a
+ * PuzzleBank record, so no Strings are built. The cache holds at most a fixed number of entries and evicts the
+ * least recently used one when it is full. Hits and misses are counted, and the contents can be saved to a file
+ * and loaded again so that the cache survives a restart.
+ * </p>
+ * <p>
+ * Keys are exact values only: a puzzle that differs from a cached one by a symmetry, such as a relabeling or a
+ * transposition, is a miss. Keying by the Canonical form would catch those, but a Canonical does not record the
+ * symmetry that produced it, so the cached solution could not be mapped back onto the puzzle asked for, and
+ * canonicalizing usually costs more than the search it would save.
+ * </p>
+ * <p>
+ * Only standard 9x9 puzzles are cached. Grids of the other Layouts are passed straight to the engine and are
+ * counted as neither hits nor misses.
+ * </p>
+ * <p>
+ * A SolutionCache may be shared between threads. The engine is called outside the lock, so two threads that
+ * miss on the same puzzle at once may both solve it.
+ * </p>
+ */
+public class SolutionCache implements Solver {
+
+	/**
+	 * The magic number at the start of every cache file
+	 */
+	public static final int MAGIC = 0x53444B43;
+
+	/**
+	 * The version of the format written by save
+	 */
+	public static final short VERSION = 1;
+
+	/**
+	 * The engine that solves puzzles missing from the cache
+	 */
+	private final Solver solver;
+
+	/**
+	 * The most entries kept
+	 */
+	private final int capacity;
+
+	/**
+	 * The cached Solutions in access order, guarded by itself
+	 */
+	private final LinkedHashMap<Key, Solution> map;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Creates a SolutionCache in front of a Solver
+	 * @param solver - the engine used for puzzles that are not in the cache
+	 * @param capacity - the most entries kept, must be positive
+	 * @throws NullPointerException if solver is null
+	 * @throws IllegalArgumentException if capacity is not positive
+	 */
+	public SolutionCache(Solver solver, final int capacity){
+		if(solver == null){throw new NullPointerException("solver cannot be null");}
+		if(capacity < 1){throw new IllegalArgumentException("capacity must be positive");}
+		this.solver = solver;
+		this.capacity = capacity;
+		this.map = new LinkedHashMap<Key, Solution>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Key, Solution> eldest){
+				return size() > capacity;
+			}
+		};
+	}
+
+	public Solution solve(Puzzle p){
+		if(p == null){throw new NullPointerException("p cannot be null");}
+		return solve(p.getValues());
+	}
+
+	public Solution solve(int[] grid){
+		if(grid != null && grid.length != 81){
+			return this.solver.solve(grid);
+		}
+		Key k = new Key(grid);
+		Solution s;
+		synchronized(this.map){
+			s = this.map.get(k);
+		}
+		if(s != null){
+			this.hits.incrementAndGet();
+			return s;
+		}
+		this.misses.incrementAndGet();
+		s = this.solver.solve(grid);
+		synchronized(this.map){
+			this.map.put(k, s);
+		}
+		return s;
+	}
+
+	public int countSolutions(int[] grid){
+		return solve(grid).getCount();
+	}
+
+	/**
+	 * @return the number of lookups answered from the cache
+	 */
+	public long getHits(){
+		return this.hits.get();
+	}
+
+	/**
+	 * @return the number of lookups that had to be solved by the engine
+	 */
+	public long getMisses(){
+		return this.misses.get();
+	}
+
+	/**
+	 * @return the number of entries in the cache
+	 */
+	public int size(){
+		synchronized(this.map){
+			return this.map.size();
+		}
+	}
+
+	/**
+	 * @return the most entries kept
+	 */
+	public int getCapacity(){
+		return this.capacity;
+	}
+
+	/**
+	 * Removes every entry and resets the hit and miss counts
+	 */
+	public void clear(){
+		synchronized(this.map){
+			this.map.clear();
+		}
+		this.hits.set(0);
+		this.misses.set(0);
+	}
+
+	/**
+	 * Writes every entry to a file, least recently used first, so that loading it restores the same order.
+	 * Each entry is the 41 byte fingerprint, the solution count as a byte, the search nodes as a long and, unless
+	 * the count is NONE, the solved grid packed the same way as the fingerprint.
+	 * @param f - the file to write, replaced if it exists
+	 * @throws NullPointerException if f is null
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(File f) throws IOException{
+		if(f == null){throw new NullPointerException("File cannot be null");}
+		List<Map.Entry<Key, Solution>> entries;
+		synchronized(this.map){
+			entries = new ArrayList<Map.Entry<Key, Solution>>(this.map.entrySet());
+		}
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), 1 << 16));
+		try{
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeInt(entries.size());
+			byte[] record = new byte[PuzzleBank.RECORD_SIZE];
+			for(Map.Entry<Key, Solution> e : entries){
+				Solution s = e.getValue();
+				out.write(e.getKey().packed);
+				out.writeByte(s.getCount());
+				out.writeLong(s.getNodes());
+				if(s.isSolvable()){
+					PuzzleBank.encode(s.getGrid(), record);
+					out.write(record);
+				}
+			}
+		}finally{
+			out.close();
+		}
+	}
+
+	/**
+	 * Adds every entry of a file written by save to the cache. Entries beyond the capacity evict the ones
+	 * loaded first.
+	 * @param f - the file to read
+	 * @return the number of entries read
+	 * @throws NullPointerException if f is null
+	 * @throws FileNotFoundException if the file referenced by f cannot be found
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalStateException if the file is not a cache file or is improperly formatted
+	 */
+	public int load(File f) throws IOException{
+		if(f == null){throw new NullPointerException("File cannot be null");}
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), 1 << 16));
+		try{
+			if(in.readInt() != MAGIC){throw new IllegalStateException("File is not a solution cache");}
+			if(in.readShort() != VERSION){throw new IllegalStateException("Unsupported solution cache version");}
+			int n = in.readInt();
+			if(n < 0){throw new IllegalStateException("Solution cache is improperly formatted");}
+			byte[] record = new byte[PuzzleBank.RECORD_SIZE];
+			for(int e = 0; e < n; e++){
+				byte[] packed = new byte[PuzzleBank.RECORD_SIZE];
+				in.readFully(packed);
+				int count = in.readByte();
+				long nodes = in.readLong();
+				if(count > Solution.MULTIPLE || count < Solution.NONE){throw new IllegalStateException("Solution cache is improperly formatted");}
+				int[] grid = null;
+				if(count != Solution.NONE){
+					in.readFully(record);
+					grid = unpack(record);
+				}
+				Key k = new Key(packed);
+				Solution s = new Solution(grid, count, nodes);
+				synchronized(this.map){
+					this.map.put(k, s);
+				}
+			}
+			return n;
+		}catch(EOFException e){
+			throw new IllegalStateException("Solution cache is truncated");
+		}finally{
+			in.close();
+		}
+	}
+
+	private static int[] unpack(byte[] record){
+		int[] v = new int[81];
+		for(int i = 0; i < 81; i++){
+			int b = record[i >> 1];
+			v[i] = (i & 1) == 0 ? (b >> 4) & 0xF : b & 0xF;
+			if(v[i] > 9){throw new IllegalStateException("Solution cache contains an invalid value");}
+		}
+		return v;
+	}
+
+	/**
+	 * The fingerprint of a grid: its values packed 4 bits each, with the hash computed once
+	 */
+	private static final class Key {
+		private final byte[] packed;
+		private final int hash;
+
+		Key(int[] grid){
+			if(grid == null){throw new NullPointerException("grid cannot be null");}
+			if(grid.length != 81){throw new IllegalArgumentException("grid must be of size 81");}
+			for(int v : grid){
+				if(v > 9 || v < 0){throw new IllegalArgumentException("grid cannot contain numbers outside the range [0,9]");}
+			}
+			this.packed = new byte[PuzzleBank.RECORD_SIZE];
+			PuzzleBank.encode(grid, this.packed);
+			this.hash = Arrays.hashCode(this.packed);
+		}
+
+		Key(byte[] packed){
+			// Rejects fingerprints read from a file that hold values outside [0,9]
+			unpack(packed);
+			this.packed = packed;
+			this.hash = Arrays.hashCode(packed);
+		}
+
+		public boolean equals(Object o){
+			return o instanceof Key && this.hash == ((Key) o).hash && Arrays.equals(this.packed, ((Key) o).packed);
+		}
+
+		public int hashCode(){
+			return this.hash;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+import javax.swing.*;
+
+/**
+ * <p>
+ * SolveWorker solves a Puzzle on a background thread, so that a long search never freezes the Swing event thread.
+ * The values are taken from a Snapshot when the worker is created, so the Puzzle may keep changing while the worker
+ * runs; isCurrent() tells whether it has changed by the time the Solution arrives.
+ * </p>
+ * <p>
+ * getProgress() is 0 until the search is over and then 100, since a search cannot tell how much of it is left.
+ * Cancelling the worker with cancel(boolean) makes get() throw CancellationException at once; a search that has
+ * already started runs to its end in the background and its result is dropped. The Solution is returned by get(),
+ * or handed back by overriding done(), which runs on the event thread.
+ * </p>
+ */
+public class SolveWorker extends SwingWorker<Solution, Void> {
+
+	/**
+	 * The engine used to solve the puzzle
+	 */
+	private final Solver solver;
+
+	/**
+	 * The puzzle being solved and its state when the worker was created
+	 */
+	private final Puzzle puzzle;
+	private final Snapshot snapshot;
+
+	/**
+	 * Creates a worker that solves the current state of a Puzzle once executed
+	 * @param s - the engine to solve with
+	 * @param p - the Puzzle to solve
+	 * @throws NullPointerException if s or p is null
+	 */
+	public SolveWorker(Solver s, Puzzle p){
+		if(s == null){throw new NullPointerException("s cannot be null");}
+		if(p == null){throw new NullPointerException("p cannot be null");}
+		this.solver = s;
+		this.puzzle = p;
+		this.snapshot = p.snapshot();
+	}
+
+	/**
+	 * @return the Puzzle being solved
+	 */
+	public Puzzle getPuzzle(){
+		return this.puzzle;
+	}
+
+	/**
+	 * @return the state of the Puzzle that is being solved, taken when the worker was created
+	 */
+	public Snapshot getSnapshot(){
+		return this.snapshot;
+	}
+
+	/**
+	 * Returns whether the Puzzle has not changed since the worker was created, so that the Solution still applies
+	 * to it as it is now
+	 * @return true if the Puzzle still holds the values that were solved
+	 */
+	public boolean isCurrent(){
+		return this.puzzle.snapshot().getVersion() == this.snapshot.getVersion();
+	}
+
+	/**
+	 * Solves the puzzle, called on a background thread
+	 * @return the Solution of the values in the Snapshot, or null if the worker was cancelled before it started
+	 */
+	protected Solution doInBackground(){
+		if(isCancelled()){return null;}
+		Solution s = this.solver.solve(this.snapshot.getValues());
+		setProgress(100);
+		return s;
+	}
+}
@@ -0,0 +1,42 @@
+/**
+ * <p>
+ * A Solver finds the solutions of a Puzzle. Every engine reports its results as a Solution, so engines can be
+ * swapped for each other and compared on the same input.
+ * </p>
+ * <p>
+ * Grids are usually the standard 9x9 puzzle, but an engine may also accept the other Layouts, whose arrays
+ * have side*side values in the range [0,side]. BitmaskSolver and DancingLinksSolver accept every Layout.
+ * </p>
+ * <p>
+ * Implementations must not modify the Puzzle or array they are given, and must be safe to share between
+ * threads.
+ * </p>
+ */
+public interface Solver {
+
+	/**
+	 * Solves the given Puzzle
+	 * @param p - the Puzzle to solve
+	 * @return a Solution holding the solution count and the first solved grid found
+	 * @throws NullPointerException if p is null
+	 */
+	Solution solve(Puzzle p);
+
+	/**
+	 * Solves a grid given as an array of 81 values in row-major order, where 0 marks an empty cell
+	 * @param grid - an int array of size 81 containing numbers in the range [0,9]
+	 * @return a Solution holding the solution count and the first solved grid found
+	 * @throws NullPointerException if grid is null
+	 * @throws IllegalArgumentException if grid is not of size 81 or contains numbers outside the range [0,9]
+	 */
+	Solution solve(int[] grid);
+
+	/**
+	 * Returns how many solutions the given grid has, stopping once two have been found
+	 * @param grid - an int array of size 81 containing numbers in the range [0,9]
+	 * @return one of Solution.NONE, Solution.UNIQUE or Solution.MULTIPLE
+	 * @throws NullPointerException if grid is null
+	 * @throws IllegalArgumentException if grid is not of size 81 or contains numbers outside the range [0,9]
+	 */
+	int countSolutions(int[] grid);
+}
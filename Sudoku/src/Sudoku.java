@@ -3,15 +3,25 @@ import java.io.*;
 import javax.swing.*;
 import java.awt.*;
 
+/**
+ * Starts the game in a window, or runs a batch command without one when there are arguments, see CommandLine
+ */
 public class Sudoku {
 	
 	public static void main(String[] args) {
+		if(args.length > 0){
+			System.exit(CommandLine.run(args, System.in, System.out, System.err));
+		}
+		if(GraphicsEnvironment.isHeadless()){
+			System.err.print(CommandLine.usage());
+			System.exit(CommandLine.USAGE);
+		}
 		SwingUtilities.invokeLater(new Runnable(){
 			@Override
 			public void run(){
-				File file = new File("src/puzzle_bank.txt");
-				Puzzle puzzle = new Puzzle(file);
-				new Board(puzzle);
+				// The window opens with an empty board and the puzzle is read in the background
+				Board board = new Board(new Puzzle(Layout.STANDARD));
+				board.load(new File("src/puzzle_bank.txt"));
 			}
 		});
 	}
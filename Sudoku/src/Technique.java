@@ -0,0 +1,88 @@
+/**
+ * <p>
+ * A Technique is one logical step a human solver can take, such as finding a naked single. Techniques work on
+ * the pencil marks of a Grid, which must hold the candidates of every empty cell and have auto pencil turned on
+ * so that placing a value removes it from the marks of its peers.
+ * </p>
+ * <p>
+ * Techniques are run in a pipeline by Grader. A Technique keeps no state between calls, so one instance may be
+ * shared by any number of Graders and threads.
+ * </p>
+ */
+public abstract class Technique {
+
+	/**
+	 * The name of this technique, used when reporting a Grade
+	 */
+	private final String name;
+
+	/**
+	 * How hard this technique is for a human, added to a puzzle's score each time it is used
+	 */
+	private final int difficulty;
+
+	/**
+	 * @param name - the name of the technique
+	 * @param difficulty - how hard the technique is for a human, must be positive
+	 * @throws IllegalArgumentException if difficulty is not positive
+	 */
+	protected Technique(String name, int difficulty){
+		if(difficulty < 1){throw new IllegalArgumentException("difficulty must be positive");}
+		this.name = name;
+		this.difficulty = difficulty;
+	}
+
+	/**
+	 * @return the name of this technique
+	 */
+	public String getName(){
+		return this.name;
+	}
+
+	/**
+	 * @return how hard this technique is for a human
+	 */
+	public int getDifficulty(){
+		return this.difficulty;
+	}
+
+	/**
+	 * Looks for one application of this technique and, if found, applies it by placing a value or removing
+	 * pencil marks
+	 * @param g - the Grid to work on
+	 * @return true if the Grid was changed
+	 */
+	public abstract boolean apply(Grid g);
+
+	/**
+	 * Removes pencil marks from an empty cell
+	 * @param g - the Grid
+	 * @param i - the index of the cell
+	 * @param mask - the marks to remove
+	 * @return true if any of the marks were present
+	 */
+	protected static boolean eliminate(Grid g, int i, int mask){
+		int marks = g.getMarks(i);
+		if(g.getValue(i) != 0 || (marks & mask) == 0){return false;}
+		g.setMarks(i, marks & ~mask);
+		return true;
+	}
+
+	/**
+	 * Returns the pencil marks of a cell, or 0 if it has a value
+	 */
+	protected static int marks(Grid g, int i){
+		return g.getValue(i) == 0 ? g.getMarks(i) : 0;
+	}
+
+	/**
+	 * @return the digit of a mask with exactly one bit set
+	 */
+	protected static int digit(int bit){
+		return Integer.numberOfTrailingZeros(bit) + 1;
+	}
+
+	public String toString(){
+		return this.name;
+	}
+}
@@ -2,6 +2,7 @@ import static org.junit.Assert.*;
 
 import java.util.*;
 import java.io.*;
+import java.nio.*;
 
 import org.junit.After;
 import org.junit.Before;
@@ -44,6 +45,968 @@ public class TestSuite {
 		}
 	}
 	
+	@Test
+	public void testCellsAreViewsOfGrid(){
+		p = new Puzzle(f);
+		Cell c = p.getCell(0, 0);
+		assertEquals(0, c.getValue());
+		c.setValue(7);
+		assertEquals(7, p.getCell(0, 0).getValue());
+		assertEquals(7, p.getValues()[0]);
+		c.setValue(0);
+		c.setPencilMarks(new int[]{2, 9});
+		assertArrayEquals(new int[]{2, 9}, p.getCell(0, 0).getPencilMarks());
+		p.getCell(0, 0).removeMark(9);
+		assertEquals(1 << 1, p.getGrid().getMarks(0));
+	}
+	
+	@Test
+	public void testPencilMask(){
+		Cell c = new Cell(new int[]{3, 1, 8});
+		assertEquals((1 << 0) | (1 << 2) | (1 << 7), c.getPencilMask());
+		assertEquals(3, c.markCount());
+		assertTrue(c.hasMark(8));
+		assertFalse(c.hasMark(2));
+		int seen = 0;
+		for(int m = c.nextMark(0); m != 0; m = c.nextMark(m)){
+			seen = seen*10 + m;
+		}
+		assertEquals(138, seen);
+		c.removeMark(1);
+		c.addMark(9);
+		assertArrayEquals(new int[]{3, 8, 9}, c.getPencilMarks());
+		assertEquals(0, c.nextMark(9));
+	}
+	
+	@Test
+	public void testFillPencilMarks(){
+		p = new Puzzle(f);
+		p.fillPencilMarks();
+		for(int i = 0; i < 81; i++){
+			if(p.getValues()[i] != 0){continue;}
+			Cell c = new Cell();
+			Cell.fillPencilMarks(c, p.getBlock((i/27)*3 + (i%9)/3), p.getColumn(i%9), p.getRow(i/9));
+			assertEquals(c.getPencilMask(), p.getCell(i/9, i%9).getPencilMask());
+		}
+		// Row 0 has 8, 4, 6 and 1, column 0 has 3 and 5 and block 0 has 8 and 1
+		assertArrayEquals(new int[]{2, 7, 9}, p.getCell(0, 0).getPencilMarks());
+	}
+	
+	@Test
+	public void testAutoPencil(){
+		p = new Puzzle(f);
+		p.setAutoPencil(true);
+		assertTrue(p.getCell(0, 1).hasMark(2));
+		p.getCell(0, 0).setValue(2);
+		assertFalse(p.getCell(0, 1).hasMark(2));
+		assertFalse(p.getCell(8, 0).hasMark(2));
+		p.getCell(0, 0).setValue(0);
+		assertTrue(p.getCell(0, 1).hasMark(2));
+		assertArrayEquals(new int[]{2, 7, 9}, p.getCell(0, 0).getPencilMarks());
+	}
+	
+	@Test
+	public void testGroupsAreReusedViews(){
+		p = new Puzzle(f);
+		assertSame(p.getRow(4), p.getRow(4));
+		assertSame(p.getBlock(8), p.getUnit(26));
+		assertFalse(p.getColumn(0).contains(new Cell(2)));
+		p.getCell(1, 0).setValue(2);
+		assertTrue(p.getColumn(0).contains(new Cell(2)));
+		assertTrue(p.getRow(1).contains(new Cell(2)));
+		assertFalse(p.checkWin());
+		assertTrue(new BitmaskSolver().solve(new Puzzle(f)).toPuzzle().checkWin());
+	}
+	
+	@Test
+	public void testIncrementalWin(){
+		p = new Puzzle(f);
+		int[] solved = new BitmaskSolver().solve(p).getGrid();
+		Grid g = p.getGrid();
+		for(int i = 0; i < 81; i++){
+			if(!p.isGiven(i/9, i%9)){
+				p.getCell(i/9, i%9).setValue(solved[i]);
+			}
+		}
+		assertEquals(81, g.getFilledCount());
+		assertTrue(p.checkWin());
+		// Swap two values in a row, creating conflicts in both columns and possibly blocks
+		p.getCell(0, 0).setValue(solved[1]);
+		assertFalse(p.checkWin());
+		assertTrue(g.getConflictCount() > 0);
+		p.getCell(0, 0).setValue(0);
+		assertEquals(80, g.getFilledCount());
+		assertEquals(0, g.getConflictCount());
+		p.getCell(0, 0).setValue(solved[0]);
+		assertTrue(p.checkWin());
+	}
+	
+	@Test
+	public void testSolveFromFile(){
+		p = new Puzzle(f);
+		Solution s = new BitmaskSolver().solve(p);
+		assertEquals(Solution.UNIQUE, s.getCount());
+		int[] grid = s.getGrid();
+		for(int i = 0; i < 81; i++){
+			assertTrue(grid[i] != 0);
+			int v = p.getCell(i/9, i%9).getValue();
+			if(v != 0){
+				assertEquals(v, s.getValue(i/9, i%9));
+			}
+		}
+		// A filled grid with no duplicates solves to itself
+		assertEquals(Solution.UNIQUE, new BitmaskSolver().countSolutions(grid));
+	}
+	
+	@Test
+	public void testSolveCounts(){
+		BitmaskSolver solver = new BitmaskSolver();
+		assertEquals(Solution.UNIQUE, solver.countSolutions(parse(HARD)));
+		assertEquals(Solution.MULTIPLE, solver.countSolutions(new int[81]));
+		int[] bad = new int[81];
+		bad[0] = 5;
+		bad[8] = 5;
+		assertEquals(Solution.NONE, solver.countSolutions(bad));
+		assertNull(solver.solve(bad).getGrid());
+	}
+	
+	@Test
+	public void testPuzzleReader() throws Exception{
+		PuzzleReader r = new PuzzleReader(f);
+		assertTrue(r.hasNext());
+		Puzzle q = r.next();
+		assertArrayEquals(new Puzzle(f).getValues(), q.getValues());
+		assertArrayEquals(new Puzzle(f).getGivens(), q.getGivens());
+		assertTrue(q.getCell(0, 4) instanceof PermCell);
+		assertFalse(r.hasNext());
+		r.close();
+		
+		String text = "# two puzzles\n" + HARD + "  rated 11.2\n\n" + HARD.replace('0', '.') + "\n";
+		r = new PuzzleReader(new ByteArrayInputStream(text.getBytes("US-ASCII")));
+		int[] values = new int[81];
+		assertTrue(r.read(values));
+		assertArrayEquals(parse(HARD), values);
+		assertArrayEquals(parse(HARD), r.next().getValues());
+		assertFalse(r.read(values));
+		assertEquals(2, r.getCount());
+		
+		// Other Layouts are read from one line each, with letters for the values above 9
+		int[] full = new Generator(new Random(16), Layout.of(4)).generateSolution();
+		StringBuilder line = new StringBuilder();
+		for(int v : full){
+			line.append(Render.compact(v));
+		}
+		r = new PuzzleReader(new ByteArrayInputStream(("1234341221434321\n" + line + " # done\n").getBytes("US-ASCII")));
+		assertEquals(16, r.nextSize());
+		assertSame(Layout.of(2), r.next().getLayout());
+		assertEquals(256, r.nextSize());
+		int[] large = new int[256];
+		assertTrue(r.read(large));
+		assertArrayEquals(full, large);
+		assertEquals(0, r.nextSize());
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testPuzzleReaderRejectsPartialPuzzle(){
+		new PuzzleReader(new ByteArrayInputStream("1 2 3 4 5 6 7 8 9\n\n".getBytes())).next();
+	}
+	
+	@Test
+	public void testPuzzleBank() throws Exception{
+		File text = File.createTempFile("bank", ".txt");
+		File bank = File.createTempFile("bank", ".bin");
+		try{
+			Writer w = new FileWriter(text);
+			w.write(HARD + "\n");
+			Scanner scan = new Scanner(f);
+			while(scan.hasNextLine()){
+				w.write(scan.nextLine() + "\n");
+			}
+			scan.close();
+			w.close();
+			
+			assertEquals(2, PuzzleBank.convert(text, bank));
+			PuzzleBank pb = new PuzzleBank(bank);
+			assertEquals(2, pb.size());
+			assertArrayEquals(new Puzzle(f).getValues(), pb.getPuzzle(1).getValues());
+			assertArrayEquals(new Puzzle(f).getGivens(), pb.getPuzzle(1).getGivens());
+			int[] values = new int[81];
+			pb.read(0, values);
+			assertArrayEquals(parse(HARD), values);
+			pb.close();
+		}finally{
+			text.delete();
+			bank.delete();
+		}
+	}
+	
+	@Test
+	public void testSolversAgree(){
+		Solver[] engines = {new BitmaskSolver(), new DancingLinksSolver()};
+		int[] bad = new int[81];
+		bad[0] = 5;
+		bad[10] = 5;
+		for(Solver s : engines){
+			assertArrayEquals(engines[0].solve(parse(HARD)).getGrid(), s.solve(parse(HARD)).getGrid());
+			assertArrayEquals(engines[0].solve(new Puzzle(f)).getGrid(), s.solve(new Puzzle(f)).getGrid());
+			assertEquals(Solution.MULTIPLE, s.countSolutions(new int[81]));
+			assertEquals(Solution.NONE, s.countSolutions(bad));
+			assertTrue(s.solve(parse(HARD)).getNodes() > 0);
+		}
+	}
+	
+	@Test
+	public void testDancingLinksCountsAll(){
+		int[] grid = new BitmaskSolver().solve(parse(HARD)).getGrid();
+		// Emptying the corners of a rectangle over two rows of one band whose opposite corners hold
+		// the same two digits leaves exactly two solutions, one with the digits swapped
+		boolean found = false;
+		for(int r1 = 0; r1 < 9 && !found; r1++){
+			for(int r2 = r1+1; r2 < (r1/3)*3 + 3 && !found; r2++){
+				for(int c1 = 0; c1 < 9 && !found; c1++){
+					for(int c2 = (c1/3)*3 + 3; c2 < 9 && !found; c2++){
+						if(grid[r1*9+c1] == grid[r2*9+c2] && grid[r1*9+c2] == grid[r2*9+c1]){
+							grid[r1*9+c1] = grid[r2*9+c2] = grid[r1*9+c2] = grid[r2*9+c1] = 0;
+							found = true;
+						}
+					}
+				}
+			}
+		}
+		assertTrue(found);
+		DancingLinksSolver dlx = new DancingLinksSolver();
+		assertEquals(2, dlx.countAll(grid, 100));
+		assertEquals(100, dlx.countAll(new int[81], 100));
+		assertEquals(1, dlx.countAll(parse(HARD), 100));
+	}
+	
+	@Test
+	public void testGenerator(){
+		Generator gen = new Generator(42);
+		int[] full = gen.generateSolution();
+		assertTrue(new Puzzle(full).checkWin());
+		for(int n = 0; n < 20; n++){
+			p = gen.generate();
+			int[] values = p.getValues();
+			assertEquals(Solution.UNIQUE, new DancingLinksSolver().countSolutions(values));
+			for(int i = 0; i < 81; i++){
+				Cell c = p.getCell(i/9, i%9);
+				assertEquals(values[i] != 0, c instanceof PermCell);
+				assertEquals(values[i], c.getValue());
+			}
+		}
+		assertTrue(p.getGrid().getFilledCount() < 40);
+		assertTrue(gen.generate(50).getGrid().getFilledCount() >= 50);
+		assertEquals(Long.MAX_VALUE, gen.getBudget());
+		
+		// 25x25 checks are budgeted, so generation finishes with a unique but not necessarily minimal puzzle
+		Generator big = new Generator(new Random(5), Layout.of(5));
+		assertEquals(Generator.LARGE_BUDGET, big.getBudget());
+		big.setBudget(100);
+		p = big.generate();
+		assertEquals(Solution.UNIQUE, new BitmaskSolver().countSolutions(p.getValues()));
+		assertTrue(p.getGrid().getFilledCount() < 625);
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testGivensCannotChange(){
+		p = new Generator(7).generate();
+		for(int i = 0; i < 81; i++){
+			if(p.getValues()[i] != 0){
+				p.getGrid().setValue(i, 0);
+			}
+		}
+	}
+	
+	@Test
+	public void testResetToGivens(){
+		p = new Puzzle(f);
+		int[] start = p.getValues();
+		long[] givens = p.getGivens();
+		for(int i = 0; i < 81; i++){
+			assertEquals(start[i] != 0, (givens[i >> 6] & (1L << i)) != 0);
+			assertEquals(start[i] != 0, p.getCell(i/9, i%9).isPerm());
+		}
+		p.setAutoPencil(true);
+		int[] marks = new int[81];
+		for(int i = 0; i < 81; i++){
+			marks[i] = p.getGrid().getMarks(i);
+		}
+		int[] solved = new BitmaskSolver().solve(p).getGrid();
+		for(int i = 0; i < 81; i += 2){
+			if(!p.isGiven(i/9, i%9)){
+				p.getGrid().setValue(i, solved[i]);
+			}
+		}
+		p.resetToGivens();
+		assertArrayEquals(start, p.getValues());
+		assertEquals(Long.bitCount(givens[0]) + Long.bitCount(givens[1]), p.getGrid().getFilledCount());
+		for(int i = 0; i < 81; i++){
+			if(start[i] == 0){
+				assertEquals(marks[i], p.getGrid().getMarks(i));
+			}
+		}
+	}
+	
+	@Test
+	public void testUndoRedo(){
+		p = new Puzzle(f);
+		p.setAutoPencil(true);
+		Journal j = p.getJournal();
+		Grid g = p.getGrid();
+		Grid before = new Grid(g);
+		assertFalse(p.undo());
+		p.getCell(1, 0).setValue(2);
+		p.getCell(1, 1).removeMark(5);
+		Grid after = new Grid(g);
+		assertTrue(p.undo());
+		assertTrue(p.getCell(1, 1).hasMark(5));
+		assertEquals(2, p.getCell(1, 0).getValue());
+		assertTrue(p.undo());
+		assertSameState(before, g);
+		assertFalse(p.undo());
+		assertTrue(p.redo());
+		assertTrue(p.redo());
+		assertFalse(p.redo());
+		assertSameState(after, g);
+		p.undo();
+		p.getCell(2, 0).setValue(6);
+		assertFalse(p.redo());
+		while(p.undo()){
+		}
+		assertArrayEquals(new Puzzle(f).getValues(), p.getValues());
+		
+		// Backtrack a search through the journal instead of copying the grid
+		before = new Grid(g);
+		long mark = j.mark();
+		int[] solved = new BitmaskSolver().solve(g.getValues()).getGrid();
+		for(int i = 0; i < 81; i++){
+			if(g.getValue(i) == 0){
+				g.setValue(i, solved[i]);
+			}
+		}
+		assertTrue(g.isSolved());
+		j.rollback(mark);
+		assertSameState(before, g);
+	}
+	
+	@Test
+	public void testJournalForgetsOldMoves(){
+		Grid g = new Grid();
+		g.setAutoPencil(true);
+		Journal j = new Journal(g, 8);
+		long mark = j.mark();
+		for(int i = 0; i < 9; i++){
+			g.setValue(i, i+1);
+		}
+		int undone = 0;
+		while(j.undo()){
+			undone++;
+		}
+		// Each value also clears the mark in up to 20 peers, so only the last moves fit in 8 entries
+		assertTrue(undone > 0 && undone < 9);
+		assertEquals(9 - undone, g.getFilledCount());
+		try{
+			j.rollback(mark);
+			fail();
+		}catch(IllegalArgumentException e){
+		}
+	}
+	
+	private static void assertSameState(Grid expected, Grid actual){
+		assertArrayEquals(expected.getValues(), actual.getValues());
+		for(int i = 0; i < 81; i++){
+			assertEquals(expected.getMarks(i), actual.getMarks(i));
+		}
+		assertEquals(expected.getFilledCount(), actual.getFilledCount());
+		assertEquals(expected.getConflictCount(), actual.getConflictCount());
+		for(int u = 0; u < Units.COUNT; u++){
+			assertEquals(expected.getUnitMask(u), actual.getUnitMask(u));
+		}
+	}
+	
+	@Test
+	public void testSnapshot() throws InterruptedException{
+		p = new Puzzle(f);
+		final Grid g = p.getGrid();
+		Snapshot s = p.snapshot();
+		assertSame(s, p.snapshot());
+		final int[] solved = new BitmaskSolver().solve(p).getGrid();
+		
+		// Once shared, a reader never sees a move half done, so the counters always match the values
+		assertFalse(g.isShared());
+		p.share();
+		assertTrue(g.isShared());
+		final boolean[] torn = new boolean[1];
+		Thread reader = new Thread(){
+			public void run(){
+				for(int n = 0; n < 20000; n++){
+					Snapshot t = g.snapshot();
+					int filled = 0;
+					for(int i = 0; i < 81; i++){
+						if(t.getValue(i) != 0){
+							filled++;
+						}
+					}
+					if(filled != t.getFilledCount()){
+						torn[0] = true;
+					}
+				}
+			}
+		};
+		reader.start();
+		for(int n = 0; n < 200; n++){
+			for(int i = 0; i < 81; i++){
+				if(!g.isFixed(i)){
+					g.setValue(i, solved[i]);
+				}
+			}
+			g.resetToGivens();
+		}
+		reader.join();
+		assertFalse(torn[0]);
+		
+		assertArrayEquals(s.getValues(), p.getValues());
+		p.getCell(1, 0).setValue(2);
+		assertNotSame(s, p.snapshot());
+		assertEquals(0, s.getValue(9));
+		assertEquals(2, p.snapshot().getValue(9));
+		Puzzle copy = s.toPuzzle();
+		assertTrue(copy.isGiven(0, 4));
+		assertArrayEquals(s.getValues(), copy.getValues());
+		assertFalse(s.checkWin());
+	}
+	
+	@Test
+	public void testPuzzleCodec(){
+		p = new Puzzle(f);
+		assertEquals(PuzzleCodec.VALUES_SIZE, PuzzleCodec.encode(p, 0).length);
+		Puzzle q = PuzzleCodec.decode(PuzzleCodec.encode(p, 0));
+		assertArrayEquals(p.getValues(), q.getValues());
+		assertTrue(q.isGiven(0, 4));
+		assertFalse(q.isGiven(0, 0));
+		
+		p.setAutoPencil(true);
+		p.getCell(1, 0).setValue(2);
+		p.getCell(1, 1).removeMark(5);
+		ByteBuffer buf = ByteBuffer.allocate(1000);
+		buf.put((byte) 42);
+		PuzzleCodec.encode(p.getGrid(), PuzzleCodec.FIXED | PuzzleCodec.MARKS, buf);
+		buf.put((byte) 43);
+		assertEquals(2 + PuzzleCodec.size(p.getGrid(), PuzzleCodec.FIXED | PuzzleCodec.MARKS), buf.position());
+		buf.flip();
+		buf.get();
+		q = PuzzleCodec.decode(buf);
+		assertEquals(43, buf.get());
+		assertArrayEquals(p.getValues(), q.getValues());
+		assertArrayEquals(p.getGivens(), q.getGivens());
+		for(int i = 0; i < 81; i++){
+			if(p.getGrid().getValue(i) == 0){
+				assertEquals(p.getGrid().getMarks(i), q.getGrid().getMarks(i));
+			}
+		}
+		
+		byte[] bad = PuzzleCodec.encode(p, 0);
+		bad[3] = (byte) 0xA0;
+		try{
+			PuzzleCodec.decode(bad);
+			fail();
+		}catch(IllegalStateException e){
+		}
+	}
+	
+	@Test
+	public void testPuzzleWriter() throws IOException{
+		Puzzle[] puzzles = {new Puzzle(f), new Puzzle(parse(HARD)), new Puzzle(new int[81])};
+		for(boolean oneLine : new boolean[]{false, true}){
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			PuzzleWriter out = new PuzzleWriter(bytes, oneLine);
+			for(Puzzle q : puzzles){
+				out.write(q);
+			}
+			out.close();
+			assertEquals(3, out.getCount());
+			PuzzleReader in = new PuzzleReader(new ByteArrayInputStream(bytes.toByteArray()));
+			for(Puzzle q : puzzles){
+				assertArrayEquals(q.getValues(), in.next().getValues());
+			}
+			assertFalse(in.hasNext());
+		}
+		
+		// The nine line format is the format of puzzle_bank.txt
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PuzzleWriter out = new PuzzleWriter(bytes);
+		out.write(new Puzzle(f));
+		out.close();
+		Scanner scan = new Scanner(f);
+		StringBuilder expected = new StringBuilder();
+		while(scan.hasNextLine()){
+			expected.append(scan.nextLine().trim()).append('\n');
+		}
+		scan.close();
+		assertEquals(expected.toString().trim(), bytes.toString().trim());
+	}
+	
+	@Test
+	public void testCanonical(){
+		int[] hard = parse(HARD);
+		// Transpose, swap the first two bands, swap two rows in the last band, swap two stacks and relabel 1 <-> 9
+		int[] bands = {3, 4, 5, 0, 1, 2, 6, 8, 7};
+		int[] stacks = {6, 7, 8, 3, 4, 5, 0, 1, 2};
+		int[] other = new int[81];
+		for(int r = 0; r < 9; r++){
+			for(int c = 0; c < 9; c++){
+				int v = hard[bands[r]*9 + stacks[c]];
+				other[c*9 + r] = v == 1 ? 9 : (v == 9 ? 1 : v);
+			}
+		}
+		Canonical a = Canonical.of(hard);
+		Canonical b = Canonical.of(new Puzzle(other));
+		assertEquals(a, b);
+		assertEquals(a.getHashHigh(), b.getHashHigh());
+		assertEquals(a.getHashLow(), b.getHashLow());
+		assertEquals(a, Canonical.of(a.getValues()));
+		assertEquals(1, a.getValues()[0]);
+		assertEquals(Solution.UNIQUE, new BitmaskSolver().solve(a.toPuzzle()).getCount());
+		
+		Canonical c = Canonical.of(new Puzzle(f));
+		assertFalse(a.equals(c));
+		assertTrue(a.getHashHigh() != c.getHashHigh());
+		
+		// Sparse grids stop searching once every given is placed
+		assertArrayEquals(new int[81], Canonical.of(new int[81]).getValues());
+		int[] sparse = new int[81];
+		sparse[40] = 7;
+		sparse[80] = 3;
+		int[] expected = new int[81];
+		expected[0] = 1;
+		// The two givens are in different bands and stacks, which no symmetry can change
+		expected[30] = 2;
+		assertArrayEquals(expected, Canonical.of(sparse).getValues());
+	}
+	
+	@Test
+	public void testSolutionCache() throws IOException{
+		SolutionCache cache = new SolutionCache(new BitmaskSolver(), 2);
+		int[] hard = parse(HARD);
+		Solution s = cache.solve(hard);
+		assertSame(s, cache.solve(new Puzzle(hard)));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(Solution.MULTIPLE, cache.countSolutions(new int[81]));
+		
+		// Filling past the capacity evicts the least recently used entry
+		cache.solve(hard);
+		cache.solve(new Puzzle(f));
+		assertEquals(2, cache.size());
+		cache.solve(new int[81]);
+		assertEquals(4, cache.getMisses());
+		
+		File tmp = File.createTempFile("cache", ".bin");
+		try{
+			cache.save(tmp);
+			SolutionCache loaded = new SolutionCache(new DancingLinksSolver(), 10);
+			assertEquals(2, loaded.load(tmp));
+			Solution t = loaded.solve(new Puzzle(f));
+			assertEquals(1, loaded.getHits());
+			assertArrayEquals(new BitmaskSolver().solve(new Puzzle(f)).getGrid(), t.getGrid());
+			assertEquals(Solution.MULTIPLE, loaded.countSolutions(new int[81]));
+			assertEquals(0, loaded.getMisses());
+
+			// Keys are exact values, so the same puzzle transposed is a miss
+			int[] transposed = new int[81];
+			for(int i = 0; i < 81; i++){
+				transposed[i] = hard[(i % 9) * 9 + i / 9];
+			}
+			loaded.solve(transposed);
+			assertEquals(1, loaded.getMisses());
+		}finally{
+			tmp.delete();
+		}
+	}
+	
+	@Test
+	public void testRender() throws IOException{
+		p = new Puzzle(f);
+		StringBuilder sb = new StringBuilder();
+		p.render(sb);
+		assertEquals(p.toString(), sb.toString());
+		StringWriter w = new StringWriter();
+		p.writeTo(w);
+		p.getRow(0).writeTo(w);
+		p.getColumn(4).render(w);
+		p.getBlock(2).render(w);
+		assertEquals(p.toString() + p.getRow(0) + p.getColumn(4) + p.getBlock(2), w.toString());
+		assertEquals("[ ][ ][ ][ ][8][4][6][ ][1]", p.getRow(0).toString());
+		assertEquals("[6][ ][1]\n[ ][ ][ ]\n[ ][4][7]\n", p.getBlock(2).toString());
+		
+		sb.setLength(0);
+		p.renderCompact(sb);
+		assertEquals(81, sb.length());
+		PuzzleReader in = new PuzzleReader(new ByteArrayInputStream(sb.toString().getBytes("US-ASCII")));
+		assertArrayEquals(p.getValues(), in.next().getValues());
+		in.close();
+	}
+	
+	@Test
+	public void testBatchSolverKeepsOrder(){
+		Puzzle[] puzzles = new Puzzle[100];
+		for(int i = 0; i < puzzles.length; i++){
+			puzzles[i] = (i % 3 == 0) ? new Puzzle(parse(HARD)) : (i % 3 == 1 ? new Puzzle(f) : new Puzzle(new int[81]));
+		}
+		BatchSolver batch = new BatchSolver(4);
+		Solution[] results = batch.solve(puzzles);
+		batch.shutdown();
+		for(int i = 0; i < puzzles.length; i++){
+			assertEquals(i % 3 == 2 ? Solution.MULTIPLE : Solution.UNIQUE, results[i].getCount());
+		}
+		assertArrayEquals(new BitmaskSolver().solve(parse(HARD)).getGrid(), results[99].getGrid());
+	}
+	
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testBatchSolverHandlerBridge() throws IOException{
+		String text = HARD + "\n" + HARD.replace('8', '0') + "\n";
+		PuzzleReader in = new PuzzleReader(new ByteArrayInputStream(text.getBytes("US-ASCII")));
+		final List<Long> order = new ArrayList<Long>();
+		BatchSolver batch = new BatchSolver(2);
+		long n = batch.solve(in, new BatchSolver.Handler(){
+			public void solved(long index, int[] values, Solution s, long nanos){
+				order.add(index);
+				assertEquals(index == 0 ? Solution.UNIQUE : Solution.MULTIPLE, s.getCount());
+			}
+		});
+		batch.shutdown();
+		in.close();
+		assertEquals(2, n);
+		assertEquals(Arrays.asList(0L, 1L), order);
+	}
+	
+	@Test
+	public void testGrader(){
+		Grader grader = new Grader();
+		Grade easy = grader.grade(new Puzzle(f));
+		assertTrue(easy.isSolved());
+		assertEquals("Naked pair", easy.getHardest());
+		int score = 0;
+		for(Technique t : grader.getTechniques()){
+			score += easy.getUses(t.getName()) * t.getDifficulty();
+		}
+		assertEquals(score, easy.getScore());
+		Grader singles = new Grader(Arrays.asList(new NakedSingle(), new HiddenSingle()));
+		assertFalse(singles.grade(new Puzzle(f)).isSolved());
+		assertFalse(grader.grade(parse(HARD)).isSolved());
+		
+		BatchGrader batch = new BatchGrader(grader, 2);
+		Grade[] grades = batch.grade(new Puzzle[]{new Puzzle(parse(HARD)), new Puzzle(f)});
+		batch.shutdown();
+		assertFalse(grades[0].isSolved());
+		assertEquals(easy.getScore(), grades[1].getScore());
+	}
+	
+	@Test
+	public void testTechniquesKeepSolution(){
+		Generator gen = new Generator(7);
+		List<Technique> techniques = Grader.standardTechniques();
+		for(int n = 0; n < 20; n++){
+			int[] values = gen.generate().getValues();
+			int[] solution = new BitmaskSolver().solve(values).getGrid();
+			Grid g = new Grid(values);
+			g.fillPencilMarks();
+			g.setAutoPencil(true);
+			boolean progress = true;
+			while(progress){
+				progress = false;
+				for(Technique t : techniques){
+					if(t.apply(g)){
+						progress = true;
+						break;
+					}
+				}
+				// No technique may place a wrong value or remove the mark of the right one
+				for(int i = 0; i < 81; i++){
+					if(g.getValue(i) == 0){
+						assertTrue(hasMark(g, i, solution[i]));
+					}else{
+						assertEquals(solution[i], g.getValue(i));
+					}
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testLargerLayouts(){
+		Layout l = Layout.of(4);
+		assertSame(l, Layout.forSize(256));
+		int[] full = new Generator(new Random(16), l).generateSolution();
+		p = new Puzzle(full);
+		assertSame(l, p.getLayout());
+		assertTrue(p.checkWin());
+		assertEquals(16, p.getRow(15).size());
+		assertTrue(p.getBlock(15).isCorrect());
+		assertEquals(full[255], p.getBlock(15).getCell(3, 3).getValue());
+		
+		int[] holes = full.clone();
+		for(int i = 0; i < holes.length; i += 3){
+			holes[i] = 0;
+		}
+		Solver[] solvers = {new BitmaskSolver(), new DancingLinksSolver()};
+		for(Solver s : solvers){
+			Solution sol = s.solve(holes);
+			assertTrue(sol.isSolvable());
+			assertTrue(sol.toPuzzle().checkWin());
+			assertEquals(full[17], sol.getValue(1, 1));
+		}
+		
+		p = new Puzzle(holes);
+		p.fillPencilMarks();
+		assertTrue(p.getCell(0, 0).hasMark(full[0]));
+		p.getJournal();
+		p.getCell(0, 0).setValue(16);
+		assertEquals(16, p.getGrid().getValue(0));
+		assertEquals("G", p.getCell(0, 0).toString());
+		assertTrue(p.undo());
+		assertEquals(0, p.getCell(0, 0).getValue());
+		assertArrayEquals(holes, new Grid(p.snapshot()).getValues());
+		assertEquals(33, p.toString().split("\n").length);
+		int[] easy = full.clone();
+		for(int i = 0; i < easy.length; i += 7){
+			easy[i] = 0;
+		}
+		Grade grade = new Grader().grade(easy);
+		assertTrue(grade.isSolved());
+		assertEquals(1, grade.getHardestDifficulty());
+	}
+	
+	@Test
+	public void testSmallLayout() throws IOException{
+		Generator gen = new Generator(new Random(4), Layout.of(2));
+		for(int n = 0; n < 20; n++){
+			p = gen.generate();
+			assertEquals(16, p.getValues().length);
+			assertEquals(Solution.UNIQUE, new DancingLinksSolver().countSolutions(p.getValues()));
+			assertEquals(Solution.UNIQUE, new BitmaskSolver().countSolutions(p.getValues()));
+		}
+		Cell c = new Cell(new int[]{1, 4}, Layout.of(2));
+		assertEquals(4, c.nextMark(1));
+		StringBuilder sb = new StringBuilder();
+		p.renderCompact(sb);
+		assertEquals(16, sb.length());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testLayoutRangeChecks(){
+		p = new Puzzle(Layout.of(2));
+		p.getCell(0, 0).setValue(5);
+	}
+	
+	@Test
+	public void testBoardComponent(){
+		p = new Puzzle(parse(HARD));
+		final List<java.awt.Rectangle> dirty = new ArrayList<java.awt.Rectangle>();
+		BoardComponent board = new BoardComponent(p){
+			public void repaint(long tm, int x, int y, int width, int height){
+				dirty.add(new java.awt.Rectangle(x, y, width, height));
+			}
+		};
+		board.setSize(451, 451);
+		assertEquals(0, board.refresh());
+		dirty.clear();
+		p.getCell(0, 1).setValue(1);
+		assertEquals(1, dirty.size());
+		assertEquals(0, board.refresh());
+		java.awt.Rectangle cell = board.getCellBounds(0, 1);
+		assertEquals(new java.awt.Rectangle(50, 0, 50, 50), cell);
+		assertTrue(dirty.get(0).contains(cell));
+
+		java.awt.image.BufferedImage img = new java.awt.image.BufferedImage(451, 451, java.awt.image.BufferedImage.TYPE_INT_RGB);
+		java.awt.Graphics g = img.createGraphics();
+		board.paint(g);
+		g.dispose();
+		assertEquals(java.awt.Color.BLACK.getRGB(), img.getRGB(150, 20));
+
+		board.setPuzzle(new Puzzle(Layout.of(4)));
+		assertEquals(0, board.refresh());
+		assertEquals(new java.awt.Dimension(16*BoardComponent.CELL_SIZE + 1, 16*BoardComponent.CELL_SIZE + 1), board.getPreferredSize());
+	}
+
+	@Test
+	public void testCellEvents(){
+		p = new Puzzle(parse(HARD));
+		final List<CellEvent> events = new ArrayList<CellEvent>();
+		CellListener l = new CellListener(){
+			public void cellsChanged(CellEvent e){
+				events.add(e);
+			}
+		};
+		p.addCellListener(l);
+		p.getCell(0, 1).setValue(1);
+		assertEquals(1, events.size());
+		CellEvent e = events.get(0);
+		assertEquals(1, e.getCellCount());
+		assertEquals(1, e.nextCell(0));
+		assertEquals(-1, e.nextCell(2));
+		assertTrue(e.isValueChanged(1));
+		assertFalse(e.isMarksChanged(1));
+		assertEquals(p.snapshot().getVersion(), e.getVersion());
+		
+		// Filling every pencil mark is one event naming every empty Cell
+		events.clear();
+		p.fillPencilMarks();
+		assertEquals(1, events.size());
+		assertEquals(81 - p.getGrid().getFilledCount(), events.get(0).getCellCount());
+		assertTrue(events.get(0).isMarksChanged(2));
+		
+		// With auto pencil, a move and the pencil marks it removes from its peers are one event
+		events.clear();
+		p.setAutoPencil(true);
+		assertEquals(0, events.size());
+		p.getJournal();
+		p.getCell(0, 2).setValue(2);
+		assertEquals(1, events.size());
+		assertTrue(events.get(0).getCellCount() > 1);
+		assertTrue(events.get(0).isValueChanged(2));
+		events.clear();
+		assertTrue(p.undo());
+		assertEquals(1, events.size());
+		assertTrue(events.get(0).isValueChanged(2));
+		
+		events.clear();
+		p.beginBatch();
+		p.getCell(0, 2).setValue(2);
+		p.getCell(0, 3).setValue(4);
+		p.beginBatch();
+		p.getCell(0, 2).setValue(0);
+		p.endBatch();
+		assertEquals(0, events.size());
+		p.endBatch();
+		assertEquals(1, events.size());
+		assertTrue(events.get(0).isValueChanged(2));
+		assertTrue(events.get(0).isValueChanged(3));
+		try{
+			p.endBatch();
+			fail();
+		}catch(IllegalStateException ex){
+		}
+		
+		events.clear();
+		p.getGrid().setMarks(2, p.getGrid().getMarks(2));
+		p.getGrid().fixGivens();
+		assertEquals(1, events.size());
+		assertTrue(events.get(0).isFixedChanged(1));
+		assertFalse(events.get(0).isFixedChanged(4));
+		p.removeCellListener(l);
+		p.resetToGivens();
+		assertEquals(1, events.size());
+	}
+	
+	@Test
+	public void testWorkers() throws Exception{
+		// run() does the work on the calling thread, the same as the background thread of execute()
+		LoadWorker load = new LoadWorker(f);
+		load.run();
+		p = load.get();
+		assertArrayEquals(new Puzzle(f).getValues(), p.getValues());
+		assertTrue(p.isGiven(0, 4));
+		assertFalse(p.isGiven(0, 0));
+		assertEquals(100, load.getProgress());
+		
+		SolveWorker solve = new SolveWorker(new BitmaskSolver(), p);
+		solve.run();
+		assertTrue(solve.get().isUnique());
+		assertTrue(solve.isCurrent());
+		p.getCell(0, 0).setValue(solve.get().getValue(0, 0));
+		assertFalse(solve.isCurrent());
+		
+		LoadWorker missing = new LoadWorker(new File("src/no_such_bank.txt"));
+		missing.run();
+		try{
+			missing.get();
+			fail();
+		}catch(java.util.concurrent.ExecutionException e){
+			assertTrue(e.getCause() instanceof FileNotFoundException);
+		}
+		
+		LoadWorker cancelled = new LoadWorker(f);
+		cancelled.cancel(true);
+		cancelled.run();
+		assertTrue(cancelled.isCancelled());
+	}
+	
+	@Test
+	public void testCommandLine() throws IOException{
+		PrintStream err = new PrintStream(new ByteArrayOutputStream());
+		InputStream none = new ByteArrayInputStream(new byte[0]);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(CommandLine.OK, CommandLine.run(new String[]{"generate", "-n", "3", "--seed", "5", "-q"}, none, out, err));
+		String generated = out.toString("US-ASCII");
+		assertEquals(3, generated.split("\n").length);
+		
+		out.reset();
+		InputStream in = new ByteArrayInputStream(generated.getBytes("US-ASCII"));
+		assertEquals(CommandLine.OK, CommandLine.run(new String[]{"validate", "-t", "2"}, in, out, err));
+		assertTrue(out.toString("US-ASCII").startsWith(generated.substring(0, 81) + " # valid\n"));
+		
+		// The same seed gives the same puzzles on any number of threads, and every size reads back
+		out.reset();
+		assertEquals(CommandLine.OK, CommandLine.run(new String[]{"generate", "-n", "3", "--seed", "5", "-t", "3", "-q"}, none, out, err));
+		assertEquals(generated, out.toString("US-ASCII"));
+		out.reset();
+		assertEquals(CommandLine.OK, CommandLine.run(new String[]{"generate", "-n", "2", "--size", "16", "-q"}, none, out, err));
+		in = new ByteArrayInputStream(out.toByteArray());
+		out.reset();
+		assertEquals(CommandLine.OK, CommandLine.run(new String[]{"validate", "-q"}, in, out, err));
+		assertEquals(2, out.toString("US-ASCII").split(" # valid\n").length);
+		
+		// A 16x16 puzzle survives generate, convert to both text formats and validate
+		out.reset();
+		assertEquals(CommandLine.OK, CommandLine.run(new String[]{"generate", "--size", "16", "--seed", "1", "-q"}, none, out, err));
+		String large = out.toString("US-ASCII");
+		for(String format : new String[]{"line", "grid"}){
+			out.reset();
+			in = new ByteArrayInputStream(large.getBytes("US-ASCII"));
+			assertEquals(CommandLine.OK, CommandLine.run(new String[]{"convert", "--format", format, "-q"}, in, out, err));
+			assertEquals(large, out.toString("US-ASCII"));
+			in = new ByteArrayInputStream(out.toByteArray());
+			out.reset();
+			assertEquals(CommandLine.OK, CommandLine.run(new String[]{"validate", "-q"}, in, out, err));
+			assertEquals(large.trim() + " # valid\n", out.toString("US-ASCII"));
+		}
+		
+		out.reset();
+		in = new ByteArrayInputStream((HARD + "\n").getBytes("US-ASCII"));
+		assertEquals(CommandLine.OK, CommandLine.run(new String[]{"solve", "-"}, in, out, err));
+		int[] solved = new BitmaskSolver().solve(parse(HARD)).getGrid();
+		PuzzleReader r = new PuzzleReader(new ByteArrayInputStream(out.toByteArray()));
+		assertArrayEquals(solved, r.next().getValues());
+		
+		out.reset();
+		// An empty grid has many solutions, so it does not validate
+		in = new ByteArrayInputStream(new String(new char[81]).replace('\0', '0').getBytes("US-ASCII"));
+		assertEquals(CommandLine.FAILED, CommandLine.run(new String[]{"validate"}, in, out, err));
+		assertTrue(out.toString("US-ASCII").endsWith(" # multiple solutions\n"));
+		assertEquals(CommandLine.USAGE, CommandLine.run(new String[]{"solve", "--size"}, none, out, err));
+		assertEquals(CommandLine.USAGE, CommandLine.run(new String[]{"unsolve"}, none, out, err));
+	}
+	
+	private static boolean hasMark(Grid g, int i, int v){
+		return (g.getMarks(i) & (1 << (v-1))) != 0;
+	}
+	
+	/**
+	 * A puzzle with a unique solution that needs a lot of guessing
+	 */
+	private static final String HARD = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+	
+	private static int[] parse(String s){
+		int[] values = new int[81];
+		for(int i = 0; i < 81; i++){
+			values[i] = s.charAt(i) - '0';
+		}
+		return values;
+	}
+	
 	@Test
 	public void runMe(){
 		p = new Puzzle(f);
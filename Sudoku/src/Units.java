@@ -0,0 +1,66 @@
+/**
+ * <p>
+ * Units holds precomputed index tables for the 27 units (9 rows, 9 columns and 9 blocks) of a puzzle.
+ * Every cell is identified by its row-major index i = row*9 + column, so walking a unit or the peers of
+ * a cell is a loop over a small int array instead of a series of Cell objects.
+ * </p>
+ * <p>
+ * Units are numbered with rows first, then columns, then blocks: unit u is row u for u in [0,9), column
+ * (u-9) for u in [9,18) and block (u-18) for u in [18,27). Blocks are numbered like Puzzle.getBlock.
+ * </p>
+ * <p>
+ * The tables are those of Layout.STANDARD, kept here under fixed names for the code that only handles the
+ * standard puzzle. They are shared and must not be modified.
+ * </p>
+ */
+final class Units {
+
+	/**
+	 * The number of units in a puzzle
+	 */
+	static final int COUNT = 27;
+
+	/**
+	 * The cells of every unit, in the same order Row, Column and Block store them
+	 */
+	static final int[][] CELLS = Layout.STANDARD.cells;
+
+	/**
+	 * The row, column and block that each cell belongs to
+	 */
+	static final int[] ROW_OF = Layout.STANDARD.rowOf;
+	static final int[] COL_OF = Layout.STANDARD.colOf;
+	static final int[] BLOCK_OF = Layout.STANDARD.blockOf;
+
+	/**
+	 * The 20 other cells that share a row, column or block with each cell
+	 */
+	static final int[][] PEERS = Layout.STANDARD.peers;
+
+	private Units(){
+	}
+
+	/**
+	 * @param r - a row in the range [0,9)
+	 * @return the unit number of row r
+	 */
+	static int row(int r){
+		return r;
+	}
+
+	/**
+	 * @param c - a column in the range [0,9)
+	 * @return the unit number of column c
+	 */
+	static int column(int c){
+		return 9 + c;
+	}
+
+	/**
+	 * @param b - a block in the range [0,9)
+	 * @return the unit number of block b
+	 */
+	static int block(int b){
+		return 18 + b;
+	}
+}
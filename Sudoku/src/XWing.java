@@ -0,0 +1,55 @@
+/**
+ * An X-wing is a digit that has exactly two places in each of two rows, and those places are in the same two
+ * columns. The digit must take one diagonal of the rectangle, so it can be removed from the rest of both
+ * columns. The same holds with rows and columns swapped.
+ */
+public class XWing extends Technique {
+
+	public XWing(){
+		super("X-wing", 10);
+	}
+
+	public boolean apply(Grid g){
+		// pos[line] has bit k set if the digit is a pencil mark of the k-th cell of that row (or column)
+		Layout l = g.getLayout();
+		int side = l.side;
+		int[] pos = new int[side];
+		for(int d = 0; d < side; d++){
+			int bit = 1 << d;
+			for(int base = 0; base < 2*side; base += side){
+				for(int line = 0; line < side; line++){
+					int p = 0;
+					int[] unit = l.cells[base + line];
+					for(int k = 0; k < side; k++){
+						if((marks(g, unit[k]) & bit) != 0){
+							p |= 1 << k;
+						}
+					}
+					pos[line] = p;
+				}
+				for(int a = 0; a < side; a++){
+					if(Integer.bitCount(pos[a]) != 2){continue;}
+					for(int b = a+1; b < side; b++){
+						if(pos[b] != pos[a]){continue;}
+						// The crossing lines are columns if base is the rows, and rows otherwise
+						int cross = base == 0 ? side : 0;
+						boolean changed = false;
+						int lines = pos[a];
+						while(lines != 0){
+							int k = Integer.numberOfTrailingZeros(lines);
+							lines &= lines - 1;
+							int[] unit = l.cells[cross + k];
+							for(int j = 0; j < side; j++){
+								if(j != a && j != b){
+									changed |= eliminate(g, unit[j], bit);
+								}
+							}
+						}
+						if(changed){return true;}
+					}
+				}
+			}
+		}
+		return false;
+	}
+}